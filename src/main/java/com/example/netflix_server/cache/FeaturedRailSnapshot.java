@@ -0,0 +1,103 @@
+package com.example.netflix_server.cache;
+
+import com.example.netflix_server.dto.ApiResponse;
+import com.example.netflix_server.dto.MediaResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Immutable, pre-encoded copy of a featured rail response.
+ *
+ * The full ApiResponse envelope is serialized once, together with a gzip variant
+ * and a strong ETag derived from the JSON bytes. Controllers write these bytes
+ * as-is. A new snapshot is only built when the content of the cached listing changes.
+ */
+public final class FeaturedRailSnapshot {
+
+    private final List<MediaResponse> source;
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag;
+
+    private FeaturedRailSnapshot(List<MediaResponse> source, byte[] json, byte[] gzip, String etag) {
+        this.source = source;
+        this.json = json;
+        this.gzip = gzip;
+        this.etag = etag;
+    }
+
+    /**
+     * Encode a featured listing into a snapshot
+     * @param source the cached listing the snapshot is built from
+     * @param message the ApiResponse message to embed
+     */
+    public static FeaturedRailSnapshot of(List<MediaResponse> source, String message, ObjectMapper objectMapper) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(ApiResponse.success(message, source));
+            return new FeaturedRailSnapshot(source, json, gzip(json), "\"" + digest(json) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode featured rail", e);
+        }
+    }
+
+    /**
+     * True if this snapshot was built from a listing with the same items and fields.
+     * Compared by value, not by instance: every cache refresh loads a new list, and
+     * an unchanged rail must keep its bytes and ETag. Not by ids and revisions alone
+     * either, since migrations rewrite fields without bumping the revision.
+     */
+    public boolean isBuiltFrom(List<MediaResponse> listing) {
+        return source.equals(listing);
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    /**
+     * Strong ETag of the identity encoding
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Strong ETag of the gzip encoding (a different representation needs its own tag)
+     */
+    public String getGzipEtag() {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String digest(byte[] data) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(data);
+            // 128 bits is plenty to tell rail versions apart
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
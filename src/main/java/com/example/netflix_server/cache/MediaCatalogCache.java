@@ -0,0 +1,121 @@
+package com.example.netflix_server.cache;
+
+import com.example.netflix_server.dto.MediaResponse;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache in front of the media catalog.
+ *
+ * Holds one entry per media id and one entry per listing (all movies, featured
+ * TV shows, ...). Entries older than the refresh interval are still served while
+ * a background reload runs (stale-while-revalidate); entries older than the TTL
+ * are dropped. Writes go through MediaService, which invalidates exactly the
+ * entries a change can affect.
+ */
+public class MediaCatalogCache {
+
+    /**
+     * Key for a cached listing: every item of a media type, or only the featured ones.
+     */
+    public record ListKey(String mediaType, boolean featuredOnly) {
+    }
+
+    private final LoadingCache<String, MediaResponse> byId;
+    private final LoadingCache<ListKey, List<MediaResponse>> lists;
+
+    public MediaCatalogCache(Function<String, MediaResponse> idLoader,
+                             Function<ListKey, List<MediaResponse>> listLoader,
+                             long maxEntries, Duration ttl, Duration refreshAfter) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .refreshAfterWrite(refreshAfter)
+                .recordStats()
+                .build(idLoader::apply);
+        this.lists = Caffeine.newBuilder()
+                // one entry per media type and featured flag, so a small bound is plenty
+                .maximumSize(16)
+                .expireAfterWrite(ttl)
+                .refreshAfterWrite(refreshAfter)
+                .recordStats()
+                .build(key -> List.copyOf(listLoader.apply(key)));
+    }
+
+    /**
+     * Get a single media item, loading it on a miss
+     * @return the cached response, or null if the media does not exist
+     */
+    public MediaResponse get(String mediaId) {
+        return byId.get(mediaId);
+    }
+
+    /**
+     * Get an immutable listing, loading it on a miss
+     */
+    public List<MediaResponse> getList(String mediaType, boolean featuredOnly) {
+        return lists.get(new ListKey(mediaType, featuredOnly));
+    }
+
+    /**
+     * Store a freshly written media item so the next read is a hit
+     */
+    public void put(MediaResponse media) {
+        byId.put(media.getId(), media);
+    }
+
+    /**
+     * Drop a single media item
+     */
+    public void invalidate(String mediaId) {
+        byId.invalidate(mediaId);
+    }
+
+    /**
+     * Drop the listings an item of the given type and featured flag appears in
+     */
+    public void invalidateLists(String mediaType, Boolean featured) {
+        lists.invalidate(new ListKey(mediaType, false));
+        if (Boolean.TRUE.equals(featured)) {
+            lists.invalidate(new ListKey(mediaType, true));
+        }
+    }
+
+    /**
+     * Drop every listing, used when a change cannot be narrowed down
+     */
+    public void invalidateAllLists() {
+        lists.invalidateAll();
+    }
+
+    /**
+     * Drop every item and listing, used when the catalog changed elsewhere
+     */
+    public void invalidateAll() {
+        byId.invalidateAll();
+        lists.invalidateAll();
+    }
+
+    public CacheStats idStats() {
+        return byId.stats();
+    }
+
+    public CacheStats listStats() {
+        return lists.stats();
+    }
+
+    /**
+     * Publish hit/miss/eviction counters and sizes as media.catalog.* cache meters
+     */
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, byId, "media.catalog.byId");
+        CaffeineCacheMetrics.monitor(registry, lists, "media.catalog.lists");
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.netflix_server.cache;
+
+import com.example.netflix_server.dto.UserResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-based cache of user profiles, addressable by id and by email.
+ *
+ * Profiles are stored once, under the user id; the email side only maps an email
+ * to an id, so both lookups share the same entry and a single invalidation covers
+ * both. Only UserResponse objects are cached, never the User document, so password
+ * hashes cannot end up in memory here.
+ */
+public class UserProfileCache {
+
+    private final Cache<String, UserResponse> byId;
+    private final Cache<String, String> idByEmail;
+
+    public UserProfileCache(long maxEntries, Duration ttl) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.idByEmail = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get a profile by id, loading it on a miss
+     * @param loader returns null if the user does not exist (absent users are not cached)
+     */
+    public UserResponse getById(String userId, Function<String, UserResponse> loader) {
+        UserResponse profile = byId.get(userId, loader);
+        if (profile != null) {
+            idByEmail.put(profile.getEmail(), profile.getId());
+        }
+        return profile;
+    }
+
+    /**
+     * Get a profile by email, loading it on a miss
+     * @param loader returns null if the user does not exist (absent users are not cached)
+     */
+    public UserResponse getByEmail(String email, Function<String, UserResponse> loader) {
+        String userId = idByEmail.getIfPresent(email);
+        if (userId != null) {
+            UserResponse profile = byId.getIfPresent(userId);
+            // The id entry may have been evicted or replaced since the email was mapped
+            if (profile != null && email.equals(profile.getEmail())) {
+                return profile;
+            }
+        }
+
+        UserResponse profile = loader.apply(email);
+        if (profile != null) {
+            put(profile);
+        }
+        return profile;
+    }
+
+    /**
+     * Store a freshly written profile under both keys
+     */
+    public void put(UserResponse profile) {
+        byId.put(profile.getId(), profile);
+        idByEmail.put(profile.getEmail(), profile.getId());
+    }
+
+    /**
+     * Drop whatever is cached under an email, used when the email's owner may have changed
+     */
+    public void invalidateEmail(String email) {
+        String userId = idByEmail.getIfPresent(email);
+        idByEmail.invalidate(email);
+        if (userId != null) {
+            byId.invalidate(userId);
+        }
+    }
+
+    /**
+     * Publish hit/miss/eviction counters and sizes as user.profile.* cache meters
+     */
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, byId, "user.profile.byId");
+        CaffeineCacheMetrics.monitor(registry, idByEmail, "user.profile.byEmail");
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.netflix_server.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Off-heap cache of fixed-size video file chunks, shared by every viewer.
+ *
+ * Chunks are read into direct ByteBuffers and kept under a byte budget with
+ * Caffeine's W-TinyLFU policy, so the opening minutes of a popular title stay
+ * resident while one-off reads do not displace them. Keys include the file's
+ * length and modification time, so a replaced file never serves stale chunks.
+ *
+ * Misses and read-ahead are loaded by a small pool that drops work when its
+ * queue is full; a response whose first chunk is cached takes every chunk it can
+ * from memory and reads only the missing ones from the file.
+ */
+public class VideoChunkCache {
+
+    private static final Logger log = LoggerFactory.getLogger(VideoChunkCache.class);
+
+    /**
+     * A chunk of one version of a file
+     */
+    public record ChunkKey(Path path, long length, long lastModified, long index) {
+    }
+
+    private final Cache<ChunkKey, ByteBuffer> chunks;
+    private final int chunkSize;
+    private final ThreadPoolExecutor loader;
+
+    // Chunks being loaded, so concurrent misses and read-ahead read each chunk once
+    private final Set<ChunkKey> loading = ConcurrentHashMap.newKeySet();
+
+    // Chunks loaded by read-ahead that no request has asked for yet
+    private final Set<ChunkKey> prefetchedUnread = ConcurrentHashMap.newKeySet();
+
+    // "client|stream" -> end position of that client's previous read
+    private final Cache<String, Long> lastPositions;
+
+    private final Counter bytesFromCache;
+    private final Counter bytesFromDisk;
+    private final Counter prefetchUsed;
+    private final Counter prefetchWasted;
+
+    public VideoChunkCache(long maxBytes, int chunkSize, int loaderThreads, MeterRegistry registry) {
+        this.chunkSize = chunkSize;
+        this.bytesFromCache = Counter.builder("media.stream.bytes").tag("source", "cache")
+                .description("Video bytes served, by where they were read from").register(registry);
+        this.bytesFromDisk = Counter.builder("media.stream.bytes").tag("source", "disk")
+                .description("Video bytes served, by where they were read from").register(registry);
+        this.prefetchUsed = Counter.builder("media.chunks.prefetch").tag("result", "used")
+                .description("Read-ahead chunks that were later requested (used) or evicted unread (wasted)")
+                .register(registry);
+        this.prefetchWasted = Counter.builder("media.chunks.prefetch").tag("result", "wasted")
+                .description("Read-ahead chunks that were later requested (used) or evicted unread (wasted)")
+                .register(registry);
+        this.chunks = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((ChunkKey key, ByteBuffer chunk) -> chunk.capacity())
+                .removalListener((ChunkKey key, ByteBuffer chunk, RemovalCause cause) -> {
+                    if (key != null && prefetchedUnread.remove(key)) {
+                        prefetchWasted.increment();
+                    }
+                })
+                .recordStats()
+                .build();
+        this.lastPositions = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofMinutes(2))
+                .build();
+        this.loader = new ThreadPoolExecutor(loaderThreads, loaderThreads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1024), runnable -> {
+                    Thread thread = new Thread(runnable, "video-chunk-loader");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.loader.allowCoreThreadTimeOut(true);
+
+        CaffeineCacheMetrics.monitor(registry, chunks, "media.chunks");
+        Gauge.builder("media.chunks.resident.bytes", chunks,
+                        cache -> cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+                .description("Bytes of video held in the off-heap chunk cache")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Check whether the chunk holding an offset is cached; if not, load it in the background
+     */
+    public boolean contains(Path path, long length, long lastModified, long offset) {
+        ChunkKey key = new ChunkKey(path, length, lastModified, offset / chunkSize);
+        if (chunks.getIfPresent(key) != null) {
+            return true;
+        }
+        load(key, false);
+        return false;
+    }
+
+    /**
+     * Write an inclusive byte range, taking each chunk from the cache when present
+     * and from the file otherwise
+     */
+    public void write(Path path, long length, long lastModified, long start, long end,
+                      WritableByteChannel target) throws IOException {
+        FileChannel channel = null;
+        try {
+            long position = start;
+            while (position <= end) {
+                long index = position / chunkSize;
+                long chunkStart = index * chunkSize;
+                long chunkEnd = Math.min(end, chunkStart + chunkSize - 1);
+                ChunkKey key = new ChunkKey(path, length, lastModified, index);
+                ByteBuffer chunk = chunks.getIfPresent(key);
+                if (chunk != null) {
+                    if (prefetchedUnread.remove(key)) {
+                        prefetchUsed.increment();
+                    }
+                    ByteBuffer slice = chunk.duplicate();
+                    slice.position((int) (position - chunkStart));
+                    slice.limit((int) (Math.min(chunkEnd + 1 - chunkStart, chunk.capacity())));
+                    int bytes = slice.remaining();
+                    while (slice.hasRemaining()) {
+                        target.write(slice);
+                    }
+                    bytesFromCache.increment(bytes);
+                } else {
+                    if (channel == null) {
+                        channel = FileChannel.open(path, StandardOpenOption.READ);
+                    }
+                    long remaining = chunkEnd - position + 1;
+                    long offset = position;
+                    while (remaining > 0) {
+                        long written = channel.transferTo(offset, remaining, target);
+                        if (written <= 0) {
+                            // File shrank since it was stat'ed; the client sees a short body
+                            return;
+                        }
+                        offset += written;
+                        remaining -= written;
+                    }
+                    bytesFromDisk.increment(chunkEnd - position + 1);
+                }
+                position = chunkEnd + 1;
+            }
+        } finally {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Record a client's read and report whether it continues where its previous read ended
+     * @param slack how far from the previous end the read may start and still count
+     */
+    public boolean isSequential(String client, String stream, long start, long end, long slack) {
+        Long previousEnd = lastPositions.asMap().put(client + "|" + stream, end);
+        return previousEnd != null && Math.abs(start - (previousEnd + 1)) <= slack;
+    }
+
+    /**
+     * Load the chunks covering [from, from + count chunks) of a file in the background
+     */
+    public void prefetch(Path path, long length, long lastModified, long from, int count) {
+        long first = from / chunkSize;
+        long last = Math.min((length - 1) / chunkSize, first + count - 1);
+        for (long index = first; index <= last; index++) {
+            ChunkKey key = new ChunkKey(path, length, lastModified, index);
+            if (chunks.asMap().containsKey(key)) {
+                continue;
+            }
+            load(key, true);
+        }
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Count bytes sent straight from disk, without going through write()
+     */
+    public void recordDiskRead(long bytes) {
+        bytesFromDisk.increment(bytes);
+    }
+
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    private void load(ChunkKey key, boolean prefetch) {
+        if (!loading.add(key)) {
+            return;
+        }
+        try {
+            loader.execute(() -> {
+                try {
+                    ByteBuffer chunk = read(key);
+                    if (chunk != null && chunks.asMap().putIfAbsent(key, chunk) == null && prefetch) {
+                        prefetchedUnread.add(key);
+                    }
+                } catch (IOException e) {
+                    log.debug("Could not cache chunk {} of {}", key.index(), key.path(), e);
+                } finally {
+                    loading.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Loader is saturated; the chunk is simply read from disk again next time
+            loading.remove(key);
+        }
+    }
+
+    private ByteBuffer read(ChunkKey key) throws IOException {
+        long position = key.index() * chunkSize;
+        int size = (int) Math.min(chunkSize, key.length() - position);
+        if (size <= 0) {
+            return null;
+        }
+        ByteBuffer chunk = ByteBuffer.allocateDirect(size);
+        try (FileChannel channel = FileChannel.open(key.path(), StandardOpenOption.READ)) {
+            while (chunk.hasRemaining()) {
+                if (channel.read(chunk, position + chunk.position()) < 0) {
+                    // File shrank since it was stat'ed; do not cache a partial chunk
+                    return null;
+                }
+            }
+        }
+        chunk.flip();
+        return chunk.asReadOnlyBuffer();
+    }
+}
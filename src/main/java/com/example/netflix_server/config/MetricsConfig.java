@@ -0,0 +1,40 @@
+package com.example.netflix_server.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics wiring on top of the actuator defaults.
+ *
+ * HTTP routes are timed as http.server.requests (tagged by URI template), Mongo
+ * commands as mongodb.driver.commands and the driver's pools as mongodb.driver.pool.*,
+ * all auto-configured by Spring Boot. This adds @Timed support for service methods
+ * and caps tag values that could otherwise grow without bound.
+ */
+@Configuration
+public class MetricsConfig {
+    
+    @Value("${metrics.max-collection-tags:50}")
+    private int maxCollectionTags;
+    
+    /**
+     * Enables @Timed on Spring beans (media.service / user.service timers)
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+    
+    /**
+     * A collection name is only bounded by the data; stop adding new ones past the limit
+     */
+    @Bean
+    public MeterFilter mongoCollectionTagLimit() {
+        return MeterFilter.maximumAllowableTags("mongodb.driver.commands", "collection",
+            maxCollectionTags, MeterFilter.deny());
+    }
+}
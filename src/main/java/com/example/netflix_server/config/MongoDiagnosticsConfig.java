@@ -0,0 +1,18 @@
+package com.example.netflix_server.config;
+
+import com.example.netflix_server.diagnostics.SlowQueryMonitor;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MongoDiagnosticsConfig {
+    
+    /**
+     * Register the slow-query log with the driver, next to the auto-configured metrics listener
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer slowQueryListener(SlowQueryMonitor slowQueryMonitor) {
+        return settings -> settings.addCommandListener(slowQueryMonitor);
+    }
+}
@@ -1,14 +1,21 @@
 package com.example.netflix_server.config;
 
 import com.example.netflix_server.security.JwtAuthenticationFilter;
+import com.example.netflix_server.security.AuthenticatedUser;
+import com.example.netflix_server.security.RateLimitFilter;
+import com.example.netflix_server.service.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Configuration
@@ -18,13 +25,23 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
     
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+    
+    @Value("${security.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+    
     @Bean
     public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(bcryptStrength);
     }
     
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, AuthService authService) throws Exception {
+        // The JWT filter grants no authorities, so admin status comes from app.admin.emails
+        AuthorizationManager<RequestAuthorizationContext> adminOnly = (authentication, context) -> new AuthorizationDecision(
+            authentication.get().getPrincipal() instanceof AuthenticatedUser user && authService.isAdmin(user));
+        
         http
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -34,9 +51,16 @@ public class SecurityConfig {
                 .requestMatchers("/api/v1/users/health").permitAll()
                 .requestMatchers("/api/v1/health/**").permitAll()
                 .requestMatchers("/api/v1/media/**").permitAll()
+                .requestMatchers("/actuator/health").permitAll()
+                // Metrics expose routes, collections and cache stats; administrators only
+                .requestMatchers("/actuator/**").access(adminOnly)
+                // Every admin endpoint, including ones added later, is covered here rather than per handler
+                .requestMatchers("/api/v1/admin/**").access(adminOnly)
                 .anyRequest().authenticated()
             )
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            // Throttle before any token parsing or password checks happen
+            .addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class);
         
         return http.build();
     }
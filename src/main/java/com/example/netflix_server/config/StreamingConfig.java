@@ -0,0 +1,73 @@
+package com.example.netflix_server.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+@Configuration
+public class StreamingConfig implements WebMvcConfigurer, DisposableBean {
+    
+    /**
+     * Request attribute marking a video response, which gets media.stream.timeout
+     * instead of the default async timeout
+     */
+    public static final String STREAM_REQUEST_ATTRIBUTE = StreamingConfig.class.getName() + ".STREAM";
+    
+    @Value("${media.stream.admission.max-concurrent:200}")
+    private int maxConcurrentStreams;
+    
+    @Value("${media.stream.timeout:PT6H}")
+    private Duration streamTimeout;
+    
+    private ThreadPoolTaskExecutor streamingExecutor;
+    
+    /**
+     * Threads that write StreamingResponseBody responses. A shaped stream occupies its
+     * thread for the whole transfer, so there is one per admitted stream. Not a bean,
+     * so Boot still creates applicationTaskExecutor for everything else.
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        streamingExecutor = new ThreadPoolTaskExecutor();
+        streamingExecutor.setCorePoolSize(maxConcurrentStreams);
+        streamingExecutor.setMaxPoolSize(maxConcurrentStreams);
+        streamingExecutor.setAllowCoreThreadTimeOut(true);
+        streamingExecutor.setThreadNamePrefix("video-stream-");
+        streamingExecutor.initialize();
+        configurer.setTaskExecutor(streamingExecutor);
+        configurer.registerCallableInterceptors(new StreamTimeoutInterceptor());
+    }
+    
+    @Override
+    public void destroy() {
+        if (streamingExecutor != null) {
+            streamingExecutor.shutdown();
+        }
+    }
+    
+    /**
+     * Applies the stream timeout before the async request starts. Clients that stop
+     * reading are cut off sooner by the connector's write timeout, which ends the
+     * body with an IOException and releases its lease.
+     */
+    private class StreamTimeoutInterceptor implements CallableProcessingInterceptor {
+        
+        @Override
+        public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+            if (request instanceof AsyncWebRequest asyncRequest
+                    && request.getAttribute(STREAM_REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+                asyncRequest.setTimeout(streamTimeout.toMillis());
+            }
+        }
+    }
+}
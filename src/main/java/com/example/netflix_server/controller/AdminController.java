@@ -0,0 +1,139 @@
+package com.example.netflix_server.controller;
+
+import com.example.netflix_server.dto.ApiResponse;
+import com.example.netflix_server.dto.BulkImportResponse;
+import com.example.netflix_server.dto.SlowQueryEntry;
+import com.example.netflix_server.diagnostics.SlowQueryMonitor;
+import com.example.netflix_server.service.JfrRecordingService;
+import com.example.netflix_server.service.UserImportService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+@RestController
+@RequestMapping("/api/v1/admin")
+@CrossOrigin(origins = "*")
+public class AdminController {
+    
+    @Autowired
+    private UserImportService userImportService;
+    
+    @Autowired
+    private JfrRecordingService jfrRecordingService;
+    
+    @Autowired
+    private SlowQueryMonitor slowQueryMonitor;
+    
+    /**
+     * Bulk import users migrated from the previous system (Protected - admin only)
+     * POST /api/v1/admin/users/import
+     * Body: a JSON array or NDJSON stream of registration records with plaintext passwords.
+     * Malformed JSON stops the import with 400; the report shows what was imported before it.
+     */
+    @PostMapping(value = "/users/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ApiResponse<BulkImportResponse>> importUsers(HttpServletRequest request) throws IOException {
+        
+        BulkImportResponse report = userImportService.importUsers(request.getInputStream());
+        
+        if (report.getParseError() != null) {
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(report.getParseError(), report));
+        }
+        
+        return ResponseEntity
+            .status(HttpStatus.OK)
+            .body(ApiResponse.success("User import completed", report));
+    }
+    
+    /**
+     * Current flight recording status (Protected - admin only)
+     * GET /api/v1/admin/jfr
+     */
+    @GetMapping("/jfr")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> jfrStatus() {
+        return jfrAction("Recording status", jfrRecordingService::status);
+    }
+    
+    /**
+     * Start a flight recording (Protected - admin only)
+     * POST /api/v1/admin/jfr/start?settings=default|profile
+     */
+    @PostMapping("/jfr/start")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> startJfr(
+            @RequestParam(defaultValue = "profile") String settings) {
+        return jfrAction("Recording started", () -> jfrRecordingService.start(settings));
+    }
+    
+    /**
+     * Write the running recording to disk without stopping it (Protected - admin only)
+     * POST /api/v1/admin/jfr/dump
+     */
+    @PostMapping("/jfr/dump")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> dumpJfr() {
+        return jfrAction("Recording dumped", jfrRecordingService::dump);
+    }
+    
+    /**
+     * Stop the running recording and write it to disk (Protected - admin only)
+     * POST /api/v1/admin/jfr/stop
+     */
+    @PostMapping("/jfr/stop")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> stopJfr() {
+        return jfrAction("Recording stopped", jfrRecordingService::stop);
+    }
+    
+    /**
+     * Slow Mongo commands with their explain plans, newest first (Protected - admin only)
+     * GET /api/v1/admin/slow-queries?limit={limit}
+     */
+    @GetMapping("/slow-queries")
+    public ResponseEntity<ApiResponse<List<SlowQueryEntry>>> getSlowQueries(
+            @RequestParam(defaultValue = "50") int limit) {
+        
+        List<SlowQueryEntry> entries = slowQueryMonitor.getEntries(Math.max(1, limit));
+        
+        return ResponseEntity
+            .status(HttpStatus.OK)
+            .body(ApiResponse.success("Slow queries retrieved successfully", entries));
+    }
+    
+    /**
+     * Empty the slow-query log (Protected - admin only)
+     * DELETE /api/v1/admin/slow-queries
+     */
+    @DeleteMapping("/slow-queries")
+    public ResponseEntity<ApiResponse<Object>> clearSlowQueries() {
+        
+        slowQueryMonitor.clear();
+        
+        return ResponseEntity
+            .status(HttpStatus.OK)
+            .body(ApiResponse.success("Slow-query log cleared"));
+    }
+    
+    /**
+     * Run a recording action, mapping "already running"/"not running" to 409
+     */
+    private ResponseEntity<ApiResponse<Map<String, Object>>> jfrAction(String message,
+                                                                       Supplier<Map<String, Object>> action) {
+        try {
+            return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(ApiResponse.success(message, action.get()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
@@ -3,11 +3,15 @@ package com.example.netflix_server.controller;
 import com.example.netflix_server.dto.ApiResponse;
 import com.example.netflix_server.dto.LoginRequest;
 import com.example.netflix_server.dto.LoginResponse;
+import com.example.netflix_server.dto.RefreshTokenRequest;
+import com.example.netflix_server.security.AuthenticatedUser;
 import com.example.netflix_server.service.AuthService;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
@@ -37,4 +41,45 @@ public class AuthController {
             .status(HttpStatus.OK)
             .body(ApiResponse.success("Login successful", loginResponse));
     }
+    
+    /**
+     * Exchange a refresh token for a new token pair (the refresh token rotates)
+     * POST /api/v1/auth/refresh
+     * 
+     * @param refreshTokenRequest the refresh token from login or the previous refresh
+     * @return ResponseEntity with a new JWT, a new refresh token and user info
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<ApiResponse<LoginResponse>> refresh(
+            @Valid @RequestBody RefreshTokenRequest refreshTokenRequest) {
+        
+        LoginResponse loginResponse = authService.refresh(refreshTokenRequest.getRefreshToken());
+        
+        return ResponseEntity
+            .status(HttpStatus.OK)
+            .body(ApiResponse.success("Token refreshed", loginResponse));
+    }
+    
+    /**
+     * Log out: revoke the presented access token and refresh token
+     * POST /api/v1/auth/logout
+     * 
+     * @param refreshTokenRequest optional refresh token to revoke along with its successors
+     * @return ResponseEntity with a confirmation message
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse<Object>> logout(
+            @RequestBody(required = false) RefreshTokenRequest refreshTokenRequest) {
+        
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        AuthenticatedUser authenticatedUser = authentication != null
+                && authentication.getPrincipal() instanceof AuthenticatedUser user ? user : null;
+        
+        authService.logout(authenticatedUser,
+            refreshTokenRequest != null ? refreshTokenRequest.getRefreshToken() : null);
+        
+        return ResponseEntity
+            .status(HttpStatus.OK)
+            .body(ApiResponse.success("Logged out"));
+    }
 }
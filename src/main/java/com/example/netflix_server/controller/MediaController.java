@@ -1,17 +1,38 @@
 package com.example.netflix_server.controller;
 
+import com.example.netflix_server.cache.FeaturedRailSnapshot;
 import com.example.netflix_server.dto.ApiResponse;
+import com.example.netflix_server.dto.BrowseResponse;
+import com.example.netflix_server.dto.BulkImportResponse;
+import com.example.netflix_server.dto.BulkPriceUpdateRequest;
+import com.example.netflix_server.dto.BulkPriceUpdateResponse;
+import com.example.netflix_server.dto.MediaPage;
+import com.example.netflix_server.dto.MediaPatchRequest;
 import com.example.netflix_server.dto.MediaRequest;
 import com.example.netflix_server.dto.MediaResponse;
+import com.example.netflix_server.dto.MediaSuggestion;
+import com.example.netflix_server.service.CatalogVersionService;
+import com.example.netflix_server.service.MediaBrowseService;
+import com.example.netflix_server.service.MediaImportService;
 import com.example.netflix_server.service.MediaService;
+import com.example.netflix_server.util.MediaFieldSelector;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/v1/media")
@@ -21,6 +42,24 @@ public class MediaController {
     @Autowired
     private MediaService mediaService;
     
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+    
+    @Autowired
+    private MediaImportService mediaImportService;
+    
+    @Autowired
+    private MediaBrowseService mediaBrowseService;
+    
+    @Value("${media.page.default-limit:50}")
+    private int defaultPageLimit;
+    
+    @Value("${media.page.max-limit:200}")
+    private int maxPageLimit;
+    
+    @Value("${media.suggest.max-results:10}")
+    private int maxSuggestions;
+    
     /**
      * 1. Create a new movie/tv show
      * POST /api/v1/media
@@ -36,39 +75,97 @@ public class MediaController {
             .body(ApiResponse.success("Media created successfully", mediaResponse));
     }
     
+    /**
+     * Bulk import movies/tv shows
+     * POST /api/v1/media/bulk
+     * Body: a JSON array or NDJSON stream of media records, read incrementally.
+     * Malformed JSON stops the import with 400; the report shows what was imported before it.
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ApiResponse<BulkImportResponse>> bulkImportMedia(HttpServletRequest request) throws IOException {
+        
+        BulkImportResponse report = mediaImportService.importMedia(request.getInputStream());
+        
+        if (report.getParseError() != null) {
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(report.getParseError(), report));
+        }
+        
+        return ResponseEntity
+            .status(HttpStatus.OK)
+            .body(ApiResponse.success("Bulk import completed", report));
+    }
+    
     /**
      * 2. Get all movies
      * GET /api/v1/media/movies
+     * GET /api/v1/media/movies?limit={limit}&cursor={nextCursor} (paginated)
+     * GET /api/v1/media/movies?fields=title,image (sparse fieldset)
      */
     @GetMapping("/movies")
-    public ResponseEntity<ApiResponse<List<MediaResponse>>> getAllMovies() {
-        List<MediaResponse> movies = mediaService.getAllMovies();
+    public ResponseEntity<ApiResponse<List<?>>> getAllMovies(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
         
-        return ResponseEntity
-            .status(HttpStatus.OK)
-            .body(ApiResponse.success("Movies retrieved successfully", movies));
+        Set<String> selectedFields = MediaFieldSelector.parse(fields);
+        
+        if (isNotModified(webRequest)) {
+            return null;
+        }
+        
+        if (limit == null && cursor == null) {
+            List<MediaResponse> movies = mediaService.getAllMovies();
+            
+            return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(ApiResponse.success("Movies retrieved successfully", MediaFieldSelector.project(movies, selectedFields)));
+        }
+        
+        return getPage("movie", limit, cursor, selectedFields, "Movies retrieved successfully");
     }
     
     /**
      * 3. Get all TV shows
      * GET /api/v1/media/tvshows
+     * GET /api/v1/media/tvshows?limit={limit}&cursor={nextCursor} (paginated)
+     * GET /api/v1/media/tvshows?fields=title,image (sparse fieldset)
      */
     @GetMapping("/tvshows")
-    public ResponseEntity<ApiResponse<List<MediaResponse>>> getAllTvShows() {
-        List<MediaResponse> tvShows = mediaService.getAllTvShows();
+    public ResponseEntity<ApiResponse<List<?>>> getAllTvShows(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
         
-        return ResponseEntity
-            .status(HttpStatus.OK)
-            .body(ApiResponse.success("TV shows retrieved successfully", tvShows));
+        Set<String> selectedFields = MediaFieldSelector.parse(fields);
+        
+        if (isNotModified(webRequest)) {
+            return null;
+        }
+        
+        if (limit == null && cursor == null) {
+            List<MediaResponse> tvShows = mediaService.getAllTvShows();
+            
+            return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(ApiResponse.success("TV shows retrieved successfully", MediaFieldSelector.project(tvShows, selectedFields)));
+        }
+        
+        return getPage("tvshow", limit, cursor, selectedFields, "TV shows retrieved successfully");
     }
     
     /**
      * 4. Search media by title
-     * GET /api/v1/media/search?title={title}
+     * GET /api/v1/media/search?title={title}&fields={fields}
      */
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse<List<MediaResponse>>> searchMediaByTitle(
-            @RequestParam String title) {
+    public ResponseEntity<ApiResponse<List<?>>> searchMediaByTitle(
+            @RequestParam String title,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
         
         if (title == null || title.trim().isEmpty()) {
             return ResponseEntity
@@ -76,20 +173,123 @@ public class MediaController {
                 .body(ApiResponse.error("Title parameter is required"));
         }
         
+        Set<String> selectedFields = MediaFieldSelector.parse(fields);
+        
+        if (isNotModified(webRequest)) {
+            return null;
+        }
+        
         List<MediaResponse> mediaList = mediaService.searchMediaByTitle(title);
         
         return ResponseEntity
             .status(HttpStatus.OK)
-            .body(ApiResponse.success("Search results retrieved successfully", mediaList));
+            .body(ApiResponse.success("Search results retrieved successfully", MediaFieldSelector.project(mediaList, selectedFields)));
+    }
+    
+    /**
+     * Browse with filters and facet counts
+     * GET /api/v1/media/browse?mediaType=movie&genre=action,drama&yearFrom=2000&yearTo=2010
+     *     &minPrice=1&maxPrice=5&sort=year&order=desc&offset=0&limit=20
+     */
+    @GetMapping("/browse")
+    public ResponseEntity<ApiResponse<BrowseResponse>> browseMedia(
+            @RequestParam(required = false) String mediaType,
+            @RequestParam(required = false) List<String> genre,
+            @RequestParam(required = false) Integer yearFrom,
+            @RequestParam(required = false) Integer yearTo,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false, defaultValue = "year") String sort,
+            @RequestParam(required = false, defaultValue = "desc") String order,
+            @RequestParam(required = false, defaultValue = "0") Integer offset,
+            @RequestParam(required = false) Integer limit,
+            WebRequest webRequest) {
+        
+        if (mediaType != null && !mediaType.matches("^(movie|tvshow)$")) {
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error("Media type must be 'movie' or 'tvshow'"));
+        }
+        
+        if (!MediaBrowseService.SORT_FIELDS.contains(sort)) {
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error("Sort must be one of " + MediaBrowseService.SORT_FIELDS));
+        }
+        
+        Sort.Direction direction = Sort.Direction.fromOptionalString(order).orElse(null);
+        if (direction == null) {
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error("Order must be 'asc' or 'desc'"));
+        }
+        
+        int pageLimit = limit != null ? limit : defaultPageLimit;
+        if (pageLimit < 1 || pageLimit > maxPageLimit || offset < 0) {
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error("Limit must be between 1 and " + maxPageLimit + " and offset must be positive"));
+        }
+        
+        if (isNotModified(webRequest)) {
+            return null;
+        }
+        
+        BrowseResponse browseResponse = mediaBrowseService.browse(
+            mediaType, genre, yearFrom, yearTo, minPrice, maxPrice, sort, direction, offset, pageLimit);
+        
+        return ResponseEntity
+            .status(HttpStatus.OK)
+            .body(ApiResponse.success("Browse results retrieved successfully", browseResponse));
+    }
+    
+    /**
+     * Typeahead suggestions by title prefix
+     * GET /api/v1/media/suggest?q={prefix}&limit={limit}
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<List<MediaSuggestion>>> suggestTitles(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit,
+            WebRequest webRequest) {
+        
+        if (q.trim().isEmpty()) {
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error("Query parameter is required"));
+        }
+        
+        int resultLimit = limit != null ? limit : maxSuggestions;
+        if (resultLimit < 1 || resultLimit > maxSuggestions) {
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error("Limit must be between 1 and " + maxSuggestions));
+        }
+        
+        if (isNotModified(webRequest)) {
+            return null;
+        }
+        
+        List<MediaSuggestion> suggestions = mediaService.suggestTitles(q, resultLimit);
+        
+        return ResponseEntity
+            .status(HttpStatus.OK)
+            .body(ApiResponse.success("Suggestions retrieved successfully", suggestions));
     }
     
     /**
      * 5. Get featured movies
      * GET /api/v1/media/movies/featured?featured=true
+     * Served from a pre-encoded snapshot, supports If-None-Match and gzip.
+     * With ?fields= the slim shape is encoded per request instead.
      */
     @GetMapping("/movies/featured")
-    public ResponseEntity<ApiResponse<List<MediaResponse>>> getFeaturedMovies(
-            @RequestParam(required = false, defaultValue = "true") Boolean featured) {
+    public ResponseEntity<?> getFeaturedMovies(
+            @RequestParam(required = false, defaultValue = "true") Boolean featured,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest) {
         
         if (!featured) {
             return ResponseEntity
@@ -97,20 +297,36 @@ public class MediaController {
                 .body(ApiResponse.error("Featured parameter must be true"));
         }
         
-        List<MediaResponse> featuredMovies = mediaService.getFeaturedMovies();
+        Set<String> selectedFields = MediaFieldSelector.parse(fields);
+        if (selectedFields != null) {
+            if (isNotModified(webRequest)) {
+                return null;
+            }
+            
+            return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(ApiResponse.success("Featured movies retrieved successfully",
+                    MediaFieldSelector.project(mediaService.getFeaturedMovies(), selectedFields)));
+        }
+        
+        FeaturedRailSnapshot rail = mediaService.getFeaturedRail("movie", "Featured movies retrieved successfully");
         
-        return ResponseEntity
-            .status(HttpStatus.OK)
-            .body(ApiResponse.success("Featured movies retrieved successfully", featuredMovies));
+        return serveFeaturedRail(rail, ifNoneMatch, acceptEncoding, webRequest);
     }
     
     /**
      * 6. Get featured TV shows
      * GET /api/v1/media/tvshows/featured?featured=true
+     * Served from a pre-encoded snapshot, supports If-None-Match and gzip.
+     * With ?fields= the slim shape is encoded per request instead.
      */
     @GetMapping("/tvshows/featured")
-    public ResponseEntity<ApiResponse<List<MediaResponse>>> getFeaturedTvShows(
-            @RequestParam(required = false, defaultValue = "true") Boolean featured) {
+    public ResponseEntity<?> getFeaturedTvShows(
+            @RequestParam(required = false, defaultValue = "true") Boolean featured,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest) {
         
         if (!featured) {
             return ResponseEntity
@@ -118,11 +334,21 @@ public class MediaController {
                 .body(ApiResponse.error("Featured parameter must be true"));
         }
         
-        List<MediaResponse> featuredTvShows = mediaService.getFeaturedTvShows();
+        Set<String> selectedFields = MediaFieldSelector.parse(fields);
+        if (selectedFields != null) {
+            if (isNotModified(webRequest)) {
+                return null;
+            }
+            
+            return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(ApiResponse.success("Featured TV shows retrieved successfully",
+                    MediaFieldSelector.project(mediaService.getFeaturedTvShows(), selectedFields)));
+        }
         
-        return ResponseEntity
-            .status(HttpStatus.OK)
-            .body(ApiResponse.success("Featured TV shows retrieved successfully", featuredTvShows));
+        FeaturedRailSnapshot rail = mediaService.getFeaturedRail("tvshow", "Featured TV shows retrieved successfully");
+        
+        return serveFeaturedRail(rail, ifNoneMatch, acceptEncoding, webRequest);
     }
     
     /**
@@ -130,7 +356,9 @@ public class MediaController {
      * GET /api/v1/media/{mediaId}
      */
     @GetMapping("/{mediaId}")
-    public ResponseEntity<ApiResponse<MediaResponse>> getMediaById(@PathVariable String mediaId) {
+    public ResponseEntity<ApiResponse<MediaResponse>> getMediaById(
+            @PathVariable String mediaId,
+            WebRequest webRequest) {
         
         // Validate mediaId is not empty/null
         if (mediaId == null || mediaId.trim().isEmpty()) {
@@ -146,6 +374,10 @@ public class MediaController {
                 .body(ApiResponse.error("Invalid media ID format"));
         }
         
+        if (isNotModified(webRequest)) {
+            return null;
+        }
+        
         MediaResponse mediaResponse = mediaService.getMediaById(mediaId);
         
         return ResponseEntity
@@ -183,6 +415,52 @@ public class MediaController {
             .body(ApiResponse.success("Media updated successfully", updatedMedia));
     }
     
+    /**
+     * Partially update existing media (only the supplied fields)
+     * PATCH /api/v1/media/{mediaId}
+     */
+    @PatchMapping("/{mediaId}")
+    public ResponseEntity<ApiResponse<MediaResponse>> patchMedia(
+            @PathVariable String mediaId,
+            @Valid @RequestBody MediaPatchRequest patchRequest) {
+        
+        // Validate MongoDB ObjectId format
+        if (!isValidObjectId(mediaId)) {
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error("Invalid media ID format"));
+        }
+        
+        MediaResponse patchedMedia = mediaService.patchMedia(mediaId, patchRequest);
+        
+        return ResponseEntity
+            .status(HttpStatus.OK)
+            .body(ApiResponse.success("Media updated successfully", patchedMedia));
+    }
+    
+    /**
+     * Change the prices of many media items at once
+     * PATCH /api/v1/media/prices
+     */
+    @PatchMapping("/prices")
+    public ResponseEntity<ApiResponse<BulkPriceUpdateResponse>> updatePrices(
+            @Valid @RequestBody BulkPriceUpdateRequest priceRequest) {
+        
+        for (BulkPriceUpdateRequest.PriceUpdate priceUpdate : priceRequest.getUpdates()) {
+            if (!isValidObjectId(priceUpdate.getId())) {
+                return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("Invalid media ID format: " + priceUpdate.getId()));
+            }
+        }
+        
+        BulkPriceUpdateResponse result = mediaService.updatePrices(priceRequest);
+        
+        return ResponseEntity
+            .status(HttpStatus.OK)
+            .body(ApiResponse.success("Prices updated successfully", result));
+    }
+    
     /**
      * 9. Delete media
      * DELETE /api/v1/media/{mediaId}
@@ -211,6 +489,123 @@ public class MediaController {
             .body(ApiResponse.success("Media deleted successfully"));
     }
     
+    /**
+     * Serve one keyset page of a media type
+     */
+    private ResponseEntity<ApiResponse<List<?>>> getPage(
+            String mediaType, Integer limit, String cursor, Set<String> fields, String message) {
+        
+        int pageLimit = limit != null ? limit : defaultPageLimit;
+        if (pageLimit < 1 || pageLimit > maxPageLimit) {
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error("Limit must be between 1 and " + maxPageLimit));
+        }
+        
+        MediaPage page = mediaService.getMediaPage(mediaType, cursor, pageLimit, fields);
+        
+        return ResponseEntity
+            .status(HttpStatus.OK)
+            .body(ApiResponse.success(message, MediaFieldSelector.project(page.getItems(), fields), page.getNextCursor()));
+    }
+    
+    /**
+     * Write a featured rail snapshot, or 304 if the client already has it
+     */
+    private ResponseEntity<?> serveFeaturedRail(FeaturedRailSnapshot rail, String ifNoneMatch,
+                                                String acceptEncoding, WebRequest webRequest) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = gzip ? rail.getGzipEtag() : rail.getEtag();
+        long lastModified = catalogVersionService.getLastModified();
+        
+        // If-None-Match takes precedence; If-Modified-Since is only used without it
+        boolean notModified = ifNoneMatch != null
+            ? etagMatches(ifNoneMatch, etag)
+            : notModifiedSince(webRequest.getHeader(HttpHeaders.IF_MODIFIED_SINCE), lastModified);
+        if (notModified) {
+            return ResponseEntity
+                .status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .lastModified(lastModified)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .build();
+        }
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity
+            .status(HttpStatus.OK)
+            .eTag(etag)
+            .lastModified(lastModified)
+            .cacheControl(CacheControl.noCache())
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .contentType(MediaType.APPLICATION_JSON);
+        
+        if (gzip) {
+            return response
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(rail.getGzip());
+        }
+        return response.body(rail.getJson());
+    }
+    
+    /**
+     * Answer a conditional GET from the catalog version, before any repository work
+     * Sets ETag and Last-Modified on the response; returns true when a 304 was prepared.
+     */
+    private boolean isNotModified(WebRequest webRequest) {
+        return webRequest.checkNotModified(
+            catalogVersionService.getEtag(),
+            catalogVersionService.getLastModified()
+        );
+    }
+    
+    /**
+     * Check whether an If-None-Match header lists the given ETag (or "*")
+     */
+    private boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Check an If-Modified-Since header against a last-modified time (second precision)
+     */
+    private boolean notModifiedSince(String ifModifiedSince, long lastModified) {
+        if (ifModifiedSince == null) {
+            return false;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.IF_MODIFIED_SINCE, ifModifiedSince);
+        long since = headers.getIfModifiedSince();
+        return since != -1 && lastModified / 1000 <= since / 1000;
+    }
+    
+    /**
+     * Check whether the client accepts a gzip encoded body
+     */
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+    
     /**
      * Validate MongoDB ObjectId format
      * @param id the ID to validate
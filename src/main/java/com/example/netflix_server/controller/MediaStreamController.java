@@ -0,0 +1,354 @@
+package com.example.netflix_server.controller;
+
+import com.example.netflix_server.config.StreamingConfig;
+import com.example.netflix_server.dto.ApiResponse;
+import com.example.netflix_server.security.AuthenticatedUser;
+import com.example.netflix_server.service.HlsService;
+import com.example.netflix_server.service.StreamAdmissionService;
+import com.example.netflix_server.service.StreamAdmissionService.StreamLease;
+import com.example.netflix_server.service.VideoStreamService;
+import com.example.netflix_server.service.VideoStreamService.ByteRange;
+import com.example.netflix_server.service.VideoStreamService.VideoFile;
+import com.example.netflix_server.util.OutputStreamChannel;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Video delivery with HTTP Range support.
+ *
+ * Bodies are written by an async StreamingResponseBody using FileChannel.transferTo,
+ * under a StreamAdmissionService lease held until the body is written and shaped
+ * to the stream's bitrate, within media.stream.timeout. Ranges already held in the
+ * off-heap chunk cache are written from memory instead. With admission control off,
+ * whole files and single ranges that are not shaped are handed to Tomcat's sendfile
+ * support when the connector offers it: the kernel copies file pages straight to
+ * the socket and no request thread waits on it.
+ * HLS segments go through the same path, with playlists generated by HlsService.
+ */
+@RestController
+@RequestMapping("/api/v1/media")
+@CrossOrigin(origins = "*")
+public class MediaStreamController {
+    
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    
+    private static final MediaType MPEGURL = MediaType.parseMediaType("application/vnd.apple.mpegurl");
+    private static final CacheControl SEGMENT_CACHE_CONTROL =
+        CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    
+    @Autowired
+    private VideoStreamService videoStreamService;
+    
+    @Autowired
+    private HlsService hlsService;
+    
+    @Autowired
+    private StreamAdmissionService streamAdmissionService;
+    
+    // Below this size the sendfile setup costs more than copying
+    @Value("${media.stream.sendfile-min-size:48KB}")
+    private DataSize sendfileMinSize;
+    
+    /**
+     * Stream the video of a movie/tv show
+     * GET /api/v1/media/{mediaId}/stream
+     */
+    @GetMapping("/{mediaId}/stream")
+    public ResponseEntity<?> streamMedia(
+            @PathVariable String mediaId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            HttpServletRequest request,
+            WebRequest webRequest) {
+        
+        // Validate MongoDB ObjectId format
+        if (!isValidObjectId(mediaId)) {
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error("Invalid media ID format"));
+        }
+        
+        VideoFile file = videoStreamService.getVideoFile(mediaId);
+        return serve(file, rangeHeader, ifRange, request, webRequest, true, null);
+    }
+    
+    /**
+     * HLS master playlist
+     * GET /api/v1/media/{mediaId}/hls/master.m3u8
+     */
+    @GetMapping("/{mediaId}/hls/master.m3u8")
+    public ResponseEntity<?> getMasterPlaylist(@PathVariable String mediaId, WebRequest webRequest) {
+        
+        if (!isValidObjectId(mediaId)) {
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error("Invalid media ID format"));
+        }
+        
+        return playlist(hlsService.getMasterPlaylist(mediaId), webRequest);
+    }
+    
+    /**
+     * HLS variant playlist of one rendition
+     * GET /api/v1/media/{mediaId}/hls/{rendition}/index.m3u8
+     */
+    @GetMapping("/{mediaId}/hls/{rendition}/index.m3u8")
+    public ResponseEntity<?> getVariantPlaylist(
+            @PathVariable String mediaId,
+            @PathVariable String rendition,
+            WebRequest webRequest) {
+        
+        if (!isValidObjectId(mediaId)) {
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error("Invalid media ID format"));
+        }
+        
+        return playlist(hlsService.getVariantPlaylist(mediaId, rendition), webRequest);
+    }
+    
+    /**
+     * HLS segment; segments never change once published, so they are cacheable for a year
+     * GET /api/v1/media/{mediaId}/hls/{rendition}/{segment}
+     */
+    @GetMapping("/{mediaId}/hls/{rendition}/{segment}")
+    public ResponseEntity<?> getSegment(
+            @PathVariable String mediaId,
+            @PathVariable String rendition,
+            @PathVariable String segment,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            HttpServletRequest request,
+            HttpServletResponse response,
+            WebRequest webRequest) {
+        
+        if (!isValidObjectId(mediaId)) {
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error("Invalid media ID format"));
+        }
+        
+        HlsService.Segment hlsSegment = hlsService.getSegment(mediaId, rendition, segment);
+        VideoFile file = videoStreamService.describe(hlsSegment.path());
+        videoStreamService.readAheadSegments(clientKey(request), "hls:" + mediaId, hlsSegment.index(),
+            (index, count) -> hlsService.getSegmentsAfter(mediaId, rendition, index, count));
+        // Set directly so 304 responses carry it too
+        response.setHeader(HttpHeaders.CACHE_CONTROL, SEGMENT_CACHE_CONTROL.getHeaderValue());
+        return serve(file, rangeHeader, ifRange, request, webRequest, false, hlsSegment.bandwidth());
+    }
+    
+    /**
+     * @param readAhead whether sequential range reads should prefetch the following chunks
+     * @param bitrate bits per second the output is shaped to, null if unknown
+     */
+    private ResponseEntity<?> serve(VideoFile file, String rangeHeader, String ifRange,
+            HttpServletRequest request, WebRequest webRequest, boolean readAhead, Long bitrate) {
+        
+        // Also sets ETag and Last-Modified on the response
+        if (webRequest.checkNotModified(file.etag(), file.lastModified())) {
+            return null;
+        }
+        
+        List<ByteRange> ranges = null;
+        if (rangeHeader != null && ifRangeMatches(ifRange, file)) {
+            ranges = videoStreamService.parseRanges(rangeHeader, file.length());
+        }
+        
+        if (ranges != null && ranges.isEmpty()) {
+            return ResponseEntity
+                .status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + file.length())
+                .build();
+        }
+        
+        if (ranges == null) {
+            return single(request, file, new ByteRange(0, file.length() - 1), HttpStatus.OK, bitrate);
+        }
+        if (ranges.size() == 1) {
+            if (readAhead) {
+                videoStreamService.readAhead(clientKey(request), file, ranges.get(0));
+            }
+            return single(request, file, ranges.get(0), HttpStatus.PARTIAL_CONTENT, bitrate);
+        }
+        return multipart(request, file, ranges, bitrate);
+    }
+    
+    private ResponseEntity<?> playlist(HlsService.Playlist playlist, WebRequest webRequest) {
+        if (webRequest.checkNotModified(playlist.etag())) {
+            return null;
+        }
+        // Playlists are regenerated when files change, so clients revalidate each time
+        return ResponseEntity
+            .status(HttpStatus.OK)
+            .cacheControl(CacheControl.noCache())
+            .contentType(MPEGURL)
+            .body(playlist.content());
+    }
+    
+    private ResponseEntity<?> single(HttpServletRequest request, VideoFile file, ByteRange range, HttpStatus status,
+            Long bitrate) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status)
+            .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+            .contentType(file.contentType());
+        if (status == HttpStatus.PARTIAL_CONTENT) {
+            response.header(HttpHeaders.CONTENT_RANGE,
+                "bytes " + range.start() + "-" + range.end() + "/" + file.length());
+        }
+        if (file.length() == 0) {
+            return response.contentLength(0).build();
+        }
+        response.contentLength(range.length());
+        
+        if ("HEAD".equals(request.getMethod())) {
+            return response.build();
+        }
+        
+        boolean cached = videoStreamService.isCached(file, range);
+        if (!cached && useSendfile(request, range, bitrate)) {
+            // Tomcat writes the file after the handler returns; the end offset is exclusive
+            videoStreamService.recordDiskRead(range.length());
+            request.setAttribute(SENDFILE_FILENAME, file.path().toString());
+            request.setAttribute(SENDFILE_START, range.start());
+            request.setAttribute(SENDFILE_END, range.end() + 1);
+            return response.build();
+        }
+        
+        StreamLease lease = streamAdmissionService.acquire(clientKey(request));
+        request.setAttribute(StreamingConfig.STREAM_REQUEST_ATTRIBUTE, Boolean.TRUE);
+        StreamingResponseBody body = out -> {
+            try (lease) {
+                WritableByteChannel target = streamAdmissionService.shape(new OutputStreamChannel(out), bitrate);
+                if (cached) {
+                    videoStreamService.writeCached(file, range, target);
+                } else {
+                    videoStreamService.recordDiskRead(range.length());
+                    transfer(file, range, target);
+                }
+            }
+        };
+        return response.body(body);
+    }
+    
+    private ResponseEntity<StreamingResponseBody> multipart(HttpServletRequest request, VideoFile file,
+            List<ByteRange> ranges, Long bitrate) {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        StreamLease lease = streamAdmissionService.acquire(clientKey(request));
+        request.setAttribute(StreamingConfig.STREAM_REQUEST_ATTRIBUTE, Boolean.TRUE);
+        StreamingResponseBody body = out -> {
+            try (lease) {
+                WritableByteChannel target = streamAdmissionService.shape(new OutputStreamChannel(out), bitrate);
+                for (ByteRange range : ranges) {
+                    String partHeader = "\r\n--" + boundary + "\r\n"
+                        + HttpHeaders.CONTENT_TYPE + ": " + file.contentType() + "\r\n"
+                        + HttpHeaders.CONTENT_RANGE + ": bytes " + range.start() + "-" + range.end() + "/" + file.length()
+                        + "\r\n\r\n";
+                    target.write(ByteBuffer.wrap(partHeader.getBytes(StandardCharsets.US_ASCII)));
+                    videoStreamService.recordDiskRead(range.length());
+                    transfer(file, range, target);
+                }
+                target.write(ByteBuffer.wrap(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII)));
+            }
+        };
+        
+        return ResponseEntity
+            .status(HttpStatus.PARTIAL_CONTENT)
+            .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+            .contentType(MediaType.parseMediaType("multipart/byteranges; boundary=" + boundary))
+            .body(body);
+    }
+    
+    /**
+     * Sendfile finishes after the handler returns, so no lease can cover it and it
+     * cannot be shaped; it is only used with admission control off, for responses
+     * that shaping leaves alone
+     */
+    private boolean useSendfile(HttpServletRequest request, ByteRange range, Long bitrate) {
+        return !streamAdmissionService.isEnabled() && !streamAdmissionService.isShaped(bitrate)
+            && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))
+            && range.length() >= sendfileMinSize.toBytes();
+    }
+    
+    private static void transfer(VideoFile file, ByteRange range, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            long position = range.start();
+            long remaining = range.length();
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, target);
+                if (written <= 0) {
+                    // File shrank underneath us; the client sees a short body
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+        }
+    }
+    
+    /**
+     * Authenticated user id, or the client address (X-Forwarded-For from a trusted proxy) for anonymous viewers
+     */
+    private static String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return "user:" + user.userId();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+    
+    private static boolean isValidObjectId(String id) {
+        return id != null && id.matches("^[0-9a-fA-F]{24}$");
+    }
+    
+    /**
+     * If-Range: serve the range only if the validator still matches, otherwise the whole file.
+     * Only strong ETags and whole-second dates can match.
+     */
+    private static boolean ifRangeMatches(String ifRange, VideoFile file) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(file.etag());
+        }
+        if (ifRange.startsWith("W/")) {
+            return false;
+        }
+        try {
+            long date = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return date / 1000 == file.lastModified() / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+}
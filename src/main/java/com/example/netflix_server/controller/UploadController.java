@@ -0,0 +1,147 @@
+package com.example.netflix_server.controller;
+
+import com.example.netflix_server.dto.ApiResponse;
+import com.example.netflix_server.dto.UploadCompleteRequest;
+import com.example.netflix_server.dto.UploadSessionRequest;
+import com.example.netflix_server.dto.UploadSessionResponse;
+import com.example.netflix_server.security.AuthenticatedUser;
+import com.example.netflix_server.service.AuthService;
+import com.example.netflix_server.service.UploadService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import java.io.IOException;
+
+/**
+ * Resumable video uploads (Protected - admin only).
+ *
+ * Create a session, PUT each chunk (in any order, retrying any that fail) and
+ * complete it; GET tells a client which chunks are still missing after a
+ * dropped connection or a server restart.
+ */
+@RestController
+@RequestMapping("/api/v1/uploads")
+@CrossOrigin(origins = "*")
+public class UploadController {
+    
+    @Autowired
+    private AuthService authService;
+    
+    @Autowired
+    private UploadService uploadService;
+    
+    /**
+     * Start an upload for a media item
+     * POST /api/v1/uploads
+     */
+    @PostMapping
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> createUpload(
+            @Valid @RequestBody UploadSessionRequest uploadRequest) {
+        
+        if (!authService.isAdmin(currentUser())) {
+            return forbidden();
+        }
+        
+        UploadSessionResponse session = uploadService.createSession(uploadRequest, currentUser().userId());
+        
+        return ResponseEntity
+            .status(HttpStatus.CREATED)
+            .body(ApiResponse.success("Upload started", session));
+    }
+    
+    /**
+     * Upload state, including the chunks still missing
+     * GET /api/v1/uploads/{uploadId}
+     */
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> getUpload(@PathVariable String uploadId) {
+        
+        if (!authService.isAdmin(currentUser())) {
+            return forbidden();
+        }
+        
+        return ResponseEntity
+            .status(HttpStatus.OK)
+            .body(ApiResponse.success("Upload retrieved successfully", uploadService.getSession(uploadId)));
+    }
+    
+    /**
+     * Upload one chunk; the body is the raw bytes, exactly chunkSize long except for the last chunk
+     * PUT /api/v1/uploads/{uploadId}/chunks/{chunkNumber}
+     */
+    @PutMapping(value = "/{uploadId}/chunks/{chunkNumber}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> uploadChunk(
+            @PathVariable String uploadId,
+            @PathVariable int chunkNumber,
+            HttpServletRequest request) throws IOException {
+        
+        if (!authService.isAdmin(currentUser())) {
+            return forbidden();
+        }
+        
+        UploadSessionResponse session = uploadService.writeChunk(
+            uploadId, chunkNumber, request.getContentLengthLong(), request.getInputStream());
+        
+        return ResponseEntity
+            .status(HttpStatus.OK)
+            .body(ApiResponse.success("Chunk " + chunkNumber + " stored", session));
+    }
+    
+    /**
+     * Finish an upload and attach the file to its media item
+     * POST /api/v1/uploads/{uploadId}/complete
+     */
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> completeUpload(
+            @PathVariable String uploadId,
+            @Valid @RequestBody(required = false) UploadCompleteRequest completeRequest) {
+        
+        if (!authService.isAdmin(currentUser())) {
+            return forbidden();
+        }
+        
+        String expectedSha256 = completeRequest != null ? completeRequest.getSha256() : null;
+        UploadSessionResponse session = uploadService.complete(uploadId, expectedSha256);
+        
+        return ResponseEntity
+            .status(HttpStatus.OK)
+            .body(ApiResponse.success("Upload completed", session));
+    }
+    
+    /**
+     * Abort an upload and delete what was received
+     * DELETE /api/v1/uploads/{uploadId}
+     */
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<ApiResponse<Object>> abortUpload(@PathVariable String uploadId) {
+        
+        if (!authService.isAdmin(currentUser())) {
+            return forbidden();
+        }
+        
+        uploadService.abort(uploadId);
+        
+        return ResponseEntity
+            .status(HttpStatus.OK)
+            .body(ApiResponse.success("Upload aborted"));
+    }
+    
+    private static <T> ResponseEntity<ApiResponse<T>> forbidden() {
+        return ResponseEntity
+            .status(HttpStatus.FORBIDDEN)
+            .body(ApiResponse.error("Access denied: administrators only"));
+    }
+    
+    private AuthenticatedUser currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return (AuthenticatedUser) authentication.getPrincipal();
+    }
+}
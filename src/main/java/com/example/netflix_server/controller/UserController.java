@@ -3,6 +3,7 @@ package com.example.netflix_server.controller;
 import com.example.netflix_server.dto.ApiResponse;
 import com.example.netflix_server.dto.UserRegistrationRequest;
 import com.example.netflix_server.dto.UserResponse;
+import com.example.netflix_server.security.AuthenticatedUser;
 import com.example.netflix_server.service.UserService;
 import com.example.netflix_server.service.AuthService;
 
@@ -68,9 +69,8 @@ public class UserController {
     @GetMapping("/{userId}")
     public ResponseEntity<ApiResponse<UserResponse>> getUserById(@PathVariable String userId) {
         
-        // Get authenticated user email from security context
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String authenticatedEmail = authentication.getName();
+        // Get the authenticated principal (built from the JWT claims) from security context
+        AuthenticatedUser authenticatedUser = currentUser();
         
         // Validate userId is not empty/null
         if (userId == null || userId.trim().isEmpty()) {
@@ -87,7 +87,7 @@ public class UserController {
         }
         
         // Check if authenticated user can access this user data
-        if (!authService.canAccessUserData(authenticatedEmail, userId)) {
+        if (!authService.canAccessUserData(authenticatedUser, userId)) {
             return ResponseEntity
                 .status(HttpStatus.FORBIDDEN)
                 .body(ApiResponse.error("Access denied: You can only access your own data"));
@@ -110,9 +110,8 @@ public class UserController {
     @GetMapping("/email/{email}")
     public ResponseEntity<ApiResponse<UserResponse>> getUserByEmail(@PathVariable String email) {
         
-        // Get authenticated user email from security context
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String authenticatedEmail = authentication.getName();
+        // Get the authenticated principal (built from the JWT claims) from security context
+        AuthenticatedUser authenticatedUser = currentUser();
         
         // Validate email is not empty/null
         if (email == null || email.trim().isEmpty()) {
@@ -122,7 +121,7 @@ public class UserController {
         }
         
         // Check if authenticated user can access this user data
-        if (!authService.canAccessUserDataByEmail(authenticatedEmail, email)) {
+        if (!authService.canAccessUserDataByEmail(authenticatedUser, email)) {
             return ResponseEntity
                 .status(HttpStatus.FORBIDDEN)
                 .body(ApiResponse.error("Access denied: You can only access your own data"));
@@ -135,6 +134,14 @@ public class UserController {
             .body(ApiResponse.success("User retrieved successfully", userResponse));
     }
     
+    /**
+     * Principal placed in the security context by JwtAuthenticationFilter
+     */
+    private AuthenticatedUser currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return (AuthenticatedUser) authentication.getPrincipal();
+    }
+    
     /**
      * Validate MongoDB ObjectId format
      * @param id the ID to validate
@@ -0,0 +1,360 @@
+package com.example.netflix_server.diagnostics;
+
+import com.example.netflix_server.dto.SlowQueryEntry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.client.MongoClient;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mongo command listener that keeps a log of slow queries and how they were executed.
+ *
+ * Read and write commands that can be explained have a copy of their command
+ * document kept until they complete. Commands slower than the threshold are
+ * explained (executionStats) on a single background thread, off the request
+ * path, and the outcome - COLLSCAN or IXSCAN, documents examined versus
+ * returned - goes into a fixed-size ring buffer exposed by the admin API. A
+ * query shape that was explained recently reuses that plan instead of
+ * explaining again.
+ */
+@Component
+public class SlowQueryMonitor implements CommandListener {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryMonitor.class);
+    
+    // command name -> field holding the filter (or pipeline) of that command
+    private static final Map<String, String> EXPLAINABLE = Map.of(
+        "find", "filter",
+        "aggregate", "pipeline",
+        "count", "query",
+        "distinct", "query",
+        "findAndModify", "query",
+        "update", "updates",
+        "delete", "deletes"
+    );
+    
+    // Driver-added fields that explain rejects or does not need
+    private static final Set<String> SESSION_FIELDS = Set.of(
+        "$db", "lsid", "$clusterTime", "txnNumber", "$readPreference", "readConcern", "writeConcern",
+        "apiVersion", "apiStrict", "apiDeprecationErrors", "autocommit", "startTransaction"
+    );
+    
+    @Autowired
+    private ObjectProvider<MongoClient> mongoClient;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${mongo.slow-query.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${mongo.slow-query.threshold:PT0.1S}")
+    private Duration threshold;
+    
+    @Value("${mongo.slow-query.buffer-size:200}")
+    private int bufferSize;
+    
+    @Value("${mongo.slow-query.explain-cooldown:PT1M}")
+    private Duration explainCooldown;
+    
+    // request id -> command copy, only while the command is in flight
+    private final Map<Integer, PendingCommand> inFlight = new ConcurrentHashMap<>();
+    
+    private SlowQueryEntry[] ring;
+    private long written;
+    
+    private Cache<String, SlowQueryEntry> recentlyExplained;
+    private ThreadPoolExecutor explainExecutor;
+    private Counter slowQueries;
+    
+    private record PendingCommand(String database, String commandName, BsonDocument command) {
+    }
+    
+    @PostConstruct
+    void init() {
+        ring = new SlowQueryEntry[bufferSize];
+        recentlyExplained = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(explainCooldown)
+            .build();
+        // One thread and a short queue: when Mongo is struggling, explains are skipped, not piled up
+        explainExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(32),
+            runnable -> {
+                Thread thread = new Thread(runnable, "slow-query-explain");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        slowQueries = Counter.builder("mongo.slow.queries")
+            .description("Mongo commands slower than mongo.slow-query.threshold")
+            .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+    
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (!enabled || !EXPLAINABLE.containsKey(event.getCommandName())) {
+            return;
+        }
+        // The event's document is only valid during this callback
+        inFlight.put(event.getRequestId(),
+            new PendingCommand(event.getDatabaseName(), event.getCommandName(), event.getCommand().clone()));
+    }
+    
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        PendingCommand pending = inFlight.remove(event.getRequestId());
+        if (pending != null) {
+            long elapsedMs = event.getElapsedTime(TimeUnit.MILLISECONDS);
+            if (elapsedMs >= threshold.toMillis()) {
+                onSlowCommand(pending, elapsedMs);
+            }
+        }
+    }
+    
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        inFlight.remove(event.getRequestId());
+    }
+    
+    /**
+     * Logged slow commands, newest first
+     */
+    public synchronized List<SlowQueryEntry> getEntries(int limit) {
+        int available = (int) Math.min(written, ring.length);
+        List<SlowQueryEntry> entries = new ArrayList<>(Math.min(limit, available));
+        for (int i = 1; i <= available && entries.size() < limit; i++) {
+            entries.add(ring[(int) ((written - i) % ring.length)]);
+        }
+        return entries;
+    }
+    
+    public synchronized void clear() {
+        ring = new SlowQueryEntry[ring.length];
+        written = 0;
+        recentlyExplained.invalidateAll();
+    }
+    
+    private void onSlowCommand(PendingCommand pending, long elapsedMs) {
+        slowQueries.increment();
+        BsonValue collection = pending.command().get(pending.commandName());
+        SlowQueryEntry entry = new SlowQueryEntry();
+        entry.setTimestamp(Instant.now());
+        entry.setDatabase(pending.database());
+        entry.setCollection(collection != null && collection.isString() ? collection.asString().getValue() : null);
+        entry.setCommandName(pending.commandName());
+        entry.setDurationMs(elapsedMs);
+        entry.setQueryShape(queryShape(pending));
+        
+        String shapeKey = entry.getDatabase() + "." + entry.getCollection() + " " + entry.getQueryShape();
+        SlowQueryEntry explained = recentlyExplained.getIfPresent(shapeKey);
+        if (explained != null) {
+            copyPlan(explained, entry);
+            append(entry);
+            return;
+        }
+        try {
+            explainExecutor.execute(() -> {
+                explain(pending, entry);
+                recentlyExplained.put(shapeKey, entry);
+                append(entry);
+            });
+        } catch (RejectedExecutionException e) {
+            entry.setExplainError("Explain skipped, too many slow queries pending");
+            append(entry);
+        }
+    }
+    
+    private void explain(PendingCommand pending, SlowQueryEntry entry) {
+        BsonDocument command = new BsonDocument();
+        for (Map.Entry<String, BsonValue> field : pending.command().entrySet()) {
+            if (!SESSION_FIELDS.contains(field.getKey())) {
+                command.append(field.getKey(), field.getValue());
+            }
+        }
+        try {
+            BsonDocument result = mongoClient.getObject()
+                .getDatabase(pending.database())
+                .runCommand(new BsonDocument("explain", command)
+                    .append("verbosity", new BsonString("executionStats")), BsonDocument.class);
+            
+            Set<String> stages = new LinkedHashSet<>();
+            Set<String> indexes = new LinkedHashSet<>();
+            BsonDocument winningPlan = findDocument(result, "winningPlan");
+            if (winningPlan != null) {
+                collectStages(winningPlan, stages, indexes);
+            }
+            entry.setStages(new ArrayList<>(stages));
+            entry.setIndexesUsed(new ArrayList<>(indexes));
+            entry.setPlanType(planType(stages));
+            
+            BsonDocument stats = findDocument(result, "executionStats");
+            if (stats != null) {
+                entry.setDocsExamined(number(stats, "totalDocsExamined"));
+                entry.setKeysExamined(number(stats, "totalKeysExamined"));
+                entry.setReturned(number(stats, "nReturned"));
+            }
+        } catch (RuntimeException e) {
+            logger.debug("Explain failed for slow {} on {}", pending.commandName(), entry.getCollection(), e);
+            entry.setExplainError(e.getMessage());
+        }
+        if ("COLLSCAN".equals(entry.getPlanType())) {
+            logger.warn("Slow {} on {} ({} ms) is a collection scan: {} docs examined for {} returned, shape {}",
+                entry.getCommandName(), entry.getCollection(), entry.getDurationMs(),
+                entry.getDocsExamined(), entry.getReturned(), entry.getQueryShape());
+        }
+    }
+    
+    private synchronized void append(SlowQueryEntry entry) {
+        ring[(int) (written % ring.length)] = entry;
+        written++;
+    }
+    
+    /**
+     * Filter, sort and projection of the command with literals replaced by "?"
+     */
+    private static String queryShape(PendingCommand pending) {
+        BsonDocument command = pending.command();
+        BsonDocument shape = new BsonDocument();
+        BsonValue query = command.get(EXPLAINABLE.get(pending.commandName()));
+        if (query != null) {
+            // update/delete carry a list of statements, each with its own filter
+            if (query.isArray() && ("update".equals(pending.commandName()) || "delete".equals(pending.commandName()))) {
+                BsonArray filters = new BsonArray();
+                for (BsonValue statement : query.asArray()) {
+                    BsonValue filter = statement.isDocument() ? statement.asDocument().get("q") : null;
+                    filters.add(filter != null ? redact(filter) : new BsonString("?"));
+                }
+                shape.append("q", filters);
+            } else {
+                shape.append(EXPLAINABLE.get(pending.commandName()), redact(query));
+            }
+        }
+        for (String field : List.of("sort", "projection", "limit")) {
+            BsonValue value = command.get(field);
+            if (value != null) {
+                shape.append(field, "limit".equals(field) ? new BsonString("?") : value);
+            }
+        }
+        return shape.toJson();
+    }
+    
+    private static BsonValue redact(BsonValue value) {
+        if (value.isDocument()) {
+            BsonDocument redacted = new BsonDocument();
+            value.asDocument().forEach((key, nested) -> redacted.append(key, redact(nested)));
+            return redacted;
+        }
+        if (value.isArray()) {
+            // Keep structure of $and/$or and pipelines, collapse lists of values
+            BsonArray array = value.asArray();
+            if (!array.isEmpty() && array.get(0).isDocument()) {
+                BsonArray redacted = new BsonArray();
+                array.forEach(element -> redacted.add(redact(element)));
+                return redacted;
+            }
+        }
+        return new BsonString("?");
+    }
+    
+    private static BsonDocument findDocument(BsonValue value, String key) {
+        if (value.isDocument()) {
+            BsonDocument document = value.asDocument();
+            BsonValue direct = document.get(key);
+            if (direct != null && direct.isDocument()) {
+                return direct.asDocument();
+            }
+            for (BsonValue nested : document.values()) {
+                BsonDocument found = findDocument(nested, key);
+                if (found != null) {
+                    return found;
+                }
+            }
+        } else if (value.isArray()) {
+            for (BsonValue element : value.asArray()) {
+                BsonDocument found = findDocument(element, key);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+    
+    private static void collectStages(BsonValue value, Set<String> stages, Set<String> indexes) {
+        if (value.isDocument()) {
+            BsonDocument document = value.asDocument();
+            if (document.isString("stage")) {
+                stages.add(document.getString("stage").getValue());
+            }
+            if (document.isString("indexName")) {
+                indexes.add(document.getString("indexName").getValue());
+            }
+            document.values().forEach(nested -> collectStages(nested, stages, indexes));
+        } else if (value.isArray()) {
+            value.asArray().forEach(element -> collectStages(element, stages, indexes));
+        }
+    }
+    
+    private static String planType(Set<String> stages) {
+        if (stages.contains("COLLSCAN")) {
+            return "COLLSCAN";
+        }
+        for (String stage : stages) {
+            if (stage.contains("IXSCAN") || "IDHACK".equals(stage) || "COUNT_SCAN".equals(stage)) {
+                return "IXSCAN";
+            }
+        }
+        return stages.isEmpty() ? null : stages.iterator().next();
+    }
+    
+    private static Long number(BsonDocument document, String key) {
+        BsonValue value = document.get(key);
+        return value != null && value.isNumber() ? value.asNumber().longValue() : null;
+    }
+    
+    private static void copyPlan(SlowQueryEntry from, SlowQueryEntry to) {
+        to.setPlanType(from.getPlanType());
+        to.setStages(from.getStages());
+        to.setIndexesUsed(from.getIndexesUsed());
+        to.setDocsExamined(from.getDocsExamined());
+        to.setKeysExamined(from.getKeysExamined());
+        to.setReturned(from.getReturned());
+        to.setExplainError(from.getExplainError());
+    }
+}
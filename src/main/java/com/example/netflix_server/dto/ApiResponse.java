@@ -1,5 +1,6 @@
 package com.example.netflix_server.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,11 +13,24 @@ public class ApiResponse<T> {
     private String message;
     private T data;
     
+    // Opaque cursor for the next page of a paginated listing (omitted when absent)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+    
+    public ApiResponse(boolean success, String message, T data) {
+        this(success, message, data, null);
+    }
+    
     // Constructor for success responses with data
     public static <T> ApiResponse<T> success(String message, T data) {
         return new ApiResponse<>(true, message, data);
     }
     
+    // Constructor for paginated success responses
+    public static <T> ApiResponse<T> success(String message, T data, String nextCursor) {
+        return new ApiResponse<>(true, message, data, nextCursor);
+    }
+    
     // Constructor for success responses without data
     public static <T> ApiResponse<T> success(String message) {
         return new ApiResponse<>(true, message, null);
@@ -0,0 +1,22 @@
+package com.example.netflix_server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BrowseResponse {
+    private List<MediaResponse> results;
+    
+    // Number of items matching the filters, across all pages
+    private long total;
+    
+    // Facet counts over the filtered set: genre -> count, mediaType -> count
+    private Map<String, Long> genres;
+    private Map<String, Long> mediaTypes;
+}
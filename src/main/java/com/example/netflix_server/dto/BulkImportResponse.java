@@ -0,0 +1,35 @@
+package com.example.netflix_server.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResponse {
+    private int received;
+    private int inserted;
+    private int failed;
+    
+    // Per-record failures, capped so a bad payload cannot grow the response without bound
+    private List<RecordError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+    
+    // Where the payload stopped being valid JSON; the records before it were still imported
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String parseError;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RecordError {
+        // Zero-based position of the record in the payload
+        private int index;
+        private String message;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.netflix_server.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkPriceUpdateRequest {
+    
+    @NotEmpty(message = "At least one price update is required")
+    @Valid
+    private List<PriceUpdate> updates;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceUpdate {
+        
+        @NotBlank(message = "Media ID is required")
+        private String id;
+        
+        @Min(value = 0, message = "Rent price must be positive")
+        private Double rentPrice;
+        
+        @Min(value = 0, message = "Purchase price must be positive")
+        private Double purchasePrice;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.netflix_server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkPriceUpdateResponse {
+    private int requested;
+    private int matched;
+    private int modified;
+}
@@ -11,9 +11,19 @@ public class LoginResponse {
     private String token;
     private String type = "Bearer";
     private UserResponse user;
+    private String refreshToken;
+    // Access token lifetime in seconds
+    private long expiresIn;
     
     public LoginResponse(String token, UserResponse user) {
         this.token = token;
         this.user = user;
     }
+    
+    public LoginResponse(String token, String refreshToken, long expiresIn, UserResponse user) {
+        this.token = token;
+        this.refreshToken = refreshToken;
+        this.expiresIn = expiresIn;
+        this.user = user;
+    }
 }
@@ -0,0 +1,17 @@
+package com.example.netflix_server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaPage {
+    private List<MediaResponse> items;
+    
+    // Cursor to pass back for the following page, null on the last page
+    private String nextCursor;
+}
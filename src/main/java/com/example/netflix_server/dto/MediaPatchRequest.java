@@ -0,0 +1,65 @@
+package com.example.netflix_server.dto;
+
+import com.example.netflix_server.model.Rendition;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Partial update of a media item. Only non-null fields are written.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaPatchRequest {
+    
+    @Pattern(regexp = ".*\\S.*", message = "Title cannot be blank")
+    private String title;
+    
+    @Pattern(regexp = ".*\\S.*", message = "Image URL cannot be blank")
+    private String image;
+    
+    private String largePoster;
+    
+    private String synopsis;
+    
+    @Min(value = 0, message = "Rent price must be positive")
+    private Double rentPrice;
+    
+    @Min(value = 0, message = "Purchase price must be positive")
+    private Double purchasePrice;
+    
+    @Min(value = 1900, message = "Year must be valid")
+    private Integer year;
+    
+    private String genre;
+    
+    private String description;
+    
+    @Pattern(regexp = "^(movie|tvshow)$", message = "Media type must be 'movie' or 'tvshow'")
+    private String mediaType;
+    
+    private Boolean featured;
+    
+    @Min(value = 0, message = "Popularity must be positive")
+    private Integer popularity;
+    
+    // Optional optimistic check: only apply the patch if the stored revision matches
+    @Min(value = 0, message = "Expected revision must be positive")
+    private Long expectedRevision;
+    
+    // Relative to the media storage root; absolute paths and ".." are rejected
+    @Pattern(regexp = "^(?![/\\\\])(?!.*\\.\\.).+$", message = "Video file must be a relative path inside the media storage")
+    private String videoFile;
+    
+    @Pattern(regexp = "^(?![/\\\\])(?!.*\\.\\.).+$", message = "HLS directory must be a relative path inside the media storage")
+    private String hlsDirectory;
+    
+    @Valid
+    private List<Rendition> renditions;
+}
@@ -1,5 +1,7 @@
 package com.example.netflix_server.dto;
 
+import com.example.netflix_server.model.Rendition;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Min;
@@ -8,6 +10,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -41,4 +45,18 @@ public class MediaRequest {
     private String mediaType;
     
     private Boolean featured = false;
+    
+    // Ranking signal for typeahead suggestions, higher ranks first
+    @Min(value = 0, message = "Popularity must be positive")
+    private Integer popularity;
+    
+    // Relative to the media storage root; absolute paths and ".." are rejected
+    @Pattern(regexp = "^(?![/\\\\])(?!.*\\.\\.).+$", message = "Video file must be a relative path inside the media storage")
+    private String videoFile;
+    
+    @Pattern(regexp = "^(?![/\\\\])(?!.*\\.\\.).+$", message = "HLS directory must be a relative path inside the media storage")
+    private String hlsDirectory;
+    
+    @Valid
+    private List<Rendition> renditions;
 }
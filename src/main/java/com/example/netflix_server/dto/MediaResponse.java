@@ -1,9 +1,12 @@
 package com.example.netflix_server.dto;
 
+import com.example.netflix_server.model.Rendition;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -17,7 +20,11 @@ public class MediaResponse {
     private Double purchasePrice;
     private Integer year;
     private String genre;
+    private List<String> genres;
     private String description;
     private String mediaType;
     private Boolean featured;
+    private Integer popularity;
+    private Long revision;
+    private List<Rendition> renditions;
 }
@@ -0,0 +1,15 @@
+package com.example.netflix_server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaSuggestion {
+    private String id;
+    private String title;
+    private String mediaType;
+    private int popularity;
+}
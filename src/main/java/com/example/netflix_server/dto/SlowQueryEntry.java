@@ -0,0 +1,36 @@
+package com.example.netflix_server.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SlowQueryEntry {
+    
+    private Instant timestamp;
+    private String database;
+    private String collection;
+    private String commandName;
+    private long durationMs;
+    
+    // Filter/sort/pipeline with every literal replaced by "?"
+    private String queryShape;
+    
+    // From explain: "COLLSCAN", "IXSCAN" or the root stage of the winning plan
+    private String planType;
+    private List<String> stages;
+    private List<String> indexesUsed;
+    private Long docsExamined;
+    private Long keysExamined;
+    private Long returned;
+    
+    // Set instead of the plan fields when explain could not run
+    private String explainError;
+}
@@ -0,0 +1,16 @@
+package com.example.netflix_server.dto;
+
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadCompleteRequest {
+    
+    // Optional; when given, the upload only completes if the server-side hash matches
+    @Pattern(regexp = "^[0-9a-fA-F]{64}$", message = "SHA-256 must be 64 hex characters")
+    private String sha256;
+}
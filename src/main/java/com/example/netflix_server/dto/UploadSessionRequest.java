@@ -0,0 +1,27 @@
+package com.example.netflix_server.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionRequest {
+    
+    @NotBlank(message = "Media ID is required")
+    @Pattern(regexp = "^[0-9a-fA-F]{24}$", message = "Invalid media ID format")
+    private String mediaId;
+    
+    @NotBlank(message = "File name is required")
+    @Pattern(regexp = "^[A-Za-z0-9_-][A-Za-z0-9._-]*$", message = "File name may only contain letters, digits, '.', '_' and '-'")
+    private String fileName;
+    
+    @NotNull(message = "Total size is required")
+    @Min(value = 1, message = "Total size must be positive")
+    private Long totalSize;
+}
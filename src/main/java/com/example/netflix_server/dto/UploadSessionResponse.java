@@ -0,0 +1,24 @@
+package com.example.netflix_server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionResponse {
+    private String id;
+    private String mediaId;
+    private String fileName;
+    private Long totalSize;
+    private Long chunkSize;
+    private Integer chunkCount;
+    private List<Integer> missingChunks;
+    private String status;
+    private String sha256;
+    private Instant expiresAt;
+}
@@ -0,0 +1,7 @@
+package com.example.netflix_server.exception;
+
+public class InvalidTokenException extends RuntimeException {
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+}
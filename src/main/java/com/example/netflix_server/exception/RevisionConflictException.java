@@ -0,0 +1,7 @@
+package com.example.netflix_server.exception;
+
+public class RevisionConflictException extends RuntimeException {
+    public RevisionConflictException(String message) {
+        super(message);
+    }
+}
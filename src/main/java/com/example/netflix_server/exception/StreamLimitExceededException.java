@@ -0,0 +1,7 @@
+package com.example.netflix_server.exception;
+
+public class StreamLimitExceededException extends RuntimeException {
+    public StreamLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.netflix_server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JWT handling for one request in JwtAuthenticationFilter.
+ */
+@Name("netflix.AuthFilter")
+@Label("JWT Authentication")
+@Category({"Netflix Server", "Security"})
+@Description("Token extraction, verification and revocation check for a request")
+@StackTrace(false)
+public class AuthFilterEvent extends Event {
+    
+    public static final String NO_TOKEN = "no-token";
+    public static final String AUTHENTICATED = "authenticated";
+    public static final String INVALID = "invalid";
+    public static final String REVOKED = "revoked";
+    
+    @Label("Route")
+    public String route;
+    
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,29 @@
+package com.example.netflix_server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A BCrypt verification made for a login, including time queued for the hashing pool.
+ */
+@Name("netflix.PasswordCheck")
+@Label("Password Check")
+@Category({"Netflix Server", "Security"})
+@Description("BCrypt password verification during login")
+@StackTrace(false)
+public class PasswordCheckEvent extends Event {
+    
+    @Label("Route")
+    public String route;
+    
+    @Label("Matched")
+    public boolean matched;
+    
+    @Label("Rehash Needed")
+    @Description("The stored hash uses a different cost factor than the configured one")
+    public boolean rehashNeeded;
+}
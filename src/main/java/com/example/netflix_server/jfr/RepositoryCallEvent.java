@@ -0,0 +1,58 @@
+package com.example.netflix_server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.function.Supplier;
+
+/**
+ * One Mongo round trip made by a service, with the route that caused it.
+ *
+ * Fields are only filled in when the event is going to be committed, so with
+ * recording off a call costs a begin/end pair that the JIT reduces to nothing.
+ */
+@Name("netflix.RepositoryCall")
+@Label("Repository Call")
+@Category({"Netflix Server", "MongoDB"})
+@Description("A MongoDB query or write issued by a service")
+@StackTrace(false)
+public class RepositoryCallEvent extends Event {
+    
+    @Label("Route")
+    String route;
+    
+    @Label("Collection")
+    String collection;
+    
+    @Label("Operation")
+    String operation;
+    
+    @Label("Query Shape")
+    @Description("Filter, sort and limit with values left out")
+    String queryShape;
+    
+    /**
+     * Run a repository call inside an event
+     * @param queryShape a constant describing the query, never the actual values
+     */
+    public static <T> T record(String collection, String operation, String queryShape, Supplier<T> call) {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        event.begin();
+        try {
+            return call.get();
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.route = RequestRoutes.current();
+                event.collection = collection;
+                event.operation = operation;
+                event.queryShape = queryShape;
+                event.commit();
+            }
+        }
+    }
+}
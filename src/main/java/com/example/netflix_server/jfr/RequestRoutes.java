@@ -0,0 +1,36 @@
+package com.example.netflix_server.jfr;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Route labels for flight recorder events.
+ */
+public final class RequestRoutes {
+    
+    // Work done outside a request: startup, cache refreshes, background jobs
+    private static final String BACKGROUND = "background";
+    
+    private RequestRoutes() {
+    }
+    
+    /**
+     * Route of the request being handled on this thread, e.g. "GET /api/v1/media/{mediaId}"
+     * Uses the matched URI template once MVC has resolved the handler, the raw path before that.
+     */
+    public static String current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return BACKGROUND;
+        }
+        return of(servletAttributes.getRequest());
+    }
+    
+    public static String of(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+}
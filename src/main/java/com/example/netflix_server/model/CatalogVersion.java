@@ -0,0 +1,25 @@
+package com.example.netflix_server.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "catalog_meta")
+public class CatalogVersion {
+    
+    // One document per versioned collection, e.g. "media"
+    @Id
+    private String id;
+    
+    // Incremented on every write to the collection
+    private Long version;
+    
+    private Instant updatedAt;
+}
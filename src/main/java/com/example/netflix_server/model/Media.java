@@ -2,6 +2,8 @@ package com.example.netflix_server.model;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -12,10 +14,23 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Pattern;
 
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "media")
+@CompoundIndexes({
+    @CompoundIndex(name = "mediaType_id", def = "{'mediaType': 1, '_id': 1}"),
+    // featured rails (findByMediaTypeAndFeatured)
+    @CompoundIndex(name = "mediaType_featured", def = "{'mediaType': 1, 'featured': 1}"),
+    // sorts offered by the browse endpoint, ending in the _id tie-breaker so the whole sort comes from the index
+    @CompoundIndex(name = "mediaType_year_id", def = "{'mediaType': 1, 'year': -1, '_id': -1}"),
+    @CompoundIndex(name = "mediaType_rentPrice_id", def = "{'mediaType': 1, 'rentPrice': 1, '_id': 1}"),
+    @CompoundIndex(name = "mediaType_popularity_id", def = "{'mediaType': 1, 'popularity': -1, '_id': -1}"),
+    @CompoundIndex(name = "mediaType_title_id", def = "{'mediaType': 1, 'title': 1, '_id': 1}"),
+    @CompoundIndex(name = "genres_year_id", def = "{'genres': 1, 'year': -1, '_id': -1}")
+})
 public class Media {
     
     @Id
@@ -43,6 +58,10 @@ public class Media {
     
     private String genre;
     
+    // Normalized copy of genre (lowercase, one entry per genre), backed by a multikey index
+    @Indexed
+    private List<String> genres;
+    
     private String description;
     
     @NotNull(message = "Media type is required")
@@ -50,4 +69,20 @@ public class Media {
     private String mediaType;
     
     private Boolean featured = false;
+    
+    // Ranking signal for typeahead suggestions, higher ranks first
+    @Min(value = 0, message = "Popularity must be positive")
+    private Integer popularity;
+    
+    // Incremented on every update, used for conditional PATCH requests
+    private Long revision = 0L;
+    
+    // Video file path, relative to media.storage.root; served by /api/v1/media/{id}/stream
+    private String videoFile;
+    
+    // HLS directory relative to media.storage.root, holding one subdirectory per rendition
+    private String hlsDirectory;
+    
+    // Renditions available under hlsDirectory, advertised in MediaResponse
+    private List<Rendition> renditions;
 }
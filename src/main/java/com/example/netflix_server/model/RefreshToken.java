@@ -0,0 +1,41 @@
+package com.example.netflix_server.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "refresh_tokens")
+public class RefreshToken {
+    
+    @Id
+    private String id;
+    
+    // SHA-256 of the token; the token itself is never stored
+    @Indexed(unique = true)
+    private String tokenHash;
+    
+    // Every token obtained by rotating from the same login shares a family
+    @Indexed
+    private String familyId;
+    
+    private String userId;
+    
+    private String email;
+    
+    // Set once the token has been exchanged; presenting it again means it was stolen
+    private boolean used;
+    
+    private Instant createdAt;
+    
+    // Mongo deletes the document once this passes
+    @Indexed(expireAfter = "0s")
+    private Instant expiresAt;
+}
@@ -0,0 +1,45 @@
+package com.example.netflix_server.model;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One pre-encoded HLS variant of a media item, embedded in Media.renditions.
+ * Its segments live in a directory named after the rendition, under Media.hlsDirectory.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Rendition {
+    
+    // Comma-separated RFC 6381 codec ids; nothing that could end the quoted CODECS attribute
+    public static final String CODECS_PATTERN = "^[A-Za-z0-9._-]+(, ?[A-Za-z0-9._-]+)*$";
+    
+    // Directory name and playlist path segment, e.g. "720p"
+    @NotNull(message = "Rendition name is required")
+    @Pattern(regexp = "^[A-Za-z0-9_-]+$", message = "Rendition name may only contain letters, digits, '_' and '-'")
+    private String name;
+    
+    // Peak bits per second, advertised as BANDWIDTH in the master playlist
+    @NotNull(message = "Rendition bandwidth is required")
+    @Min(value = 1, message = "Rendition bandwidth must be positive")
+    private Long bandwidth;
+    
+    private Integer width;
+    
+    private Integer height;
+    
+    // RFC 6381 codec string, e.g. "avc1.64001f,mp4a.40.2"
+    @Pattern(regexp = CODECS_PATTERN, message = "Rendition codecs must be a comma-separated list of RFC 6381 codec ids")
+    private String codecs;
+    
+    // Target length of each segment in seconds, as encoded
+    @NotNull(message = "Rendition segment duration is required")
+    @DecimalMin(value = "0.1", message = "Rendition segment duration must be positive")
+    private Double segmentDuration;
+}
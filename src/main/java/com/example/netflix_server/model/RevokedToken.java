@@ -0,0 +1,29 @@
+package com.example.netflix_server.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "revoked_tokens")
+public class RevokedToken {
+    
+    // The access token's jti claim
+    @Id
+    private String id;
+    
+    // Used by other instances to pick up new revocations
+    @Indexed
+    private Instant revokedAt;
+    
+    // A revoked token only matters until it would have expired anyway
+    @Indexed(expireAfter = "0s")
+    private Instant expiresAt;
+}
@@ -0,0 +1,50 @@
+package com.example.netflix_server.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "upload_sessions")
+public class UploadSession {
+    
+    @Id
+    private String id;
+    
+    // Media whose videoFile is set when the upload completes
+    private String mediaId;
+    
+    private String userId;
+    
+    private String fileName;
+    
+    private Long totalSize;
+    
+    // Every chunk has this size except the last one
+    private Long chunkSize;
+    
+    private Integer chunkCount;
+    
+    // Numbers of the chunks fully written to disk
+    private List<Integer> receivedChunks;
+    
+    // "open", "completing" while complete() runs, or "complete"
+    private String status;
+    
+    // Hex SHA-256 of the whole file, set on completion
+    private String sha256;
+    
+    private Instant createdAt;
+    
+    // Pushed back by every chunk; abandoned uploads are deleted with their data after this
+    @Indexed
+    private Instant expiresAt;
+}
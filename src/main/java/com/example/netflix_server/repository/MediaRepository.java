@@ -1,11 +1,13 @@
 package com.example.netflix_server.repository;
 
 import com.example.netflix_server.model.Media;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface MediaRepository extends MongoRepository<Media, String> {
@@ -15,15 +17,25 @@ public interface MediaRepository extends MongoRepository<Media, String> {
      */
     List<Media> findByMediaType(String mediaType);
     
+    /**
+     * First page of a media type in _id order (served by the mediaType/_id index)
+     */
+    List<Media> findByMediaTypeOrderByIdAsc(String mediaType, Limit limit);
+    
+    /**
+     * Next page of a media type after the given _id (keyset pagination)
+     */
+    List<Media> findByMediaTypeAndIdGreaterThanOrderByIdAsc(String mediaType, String afterId, Limit limit);
+    
     /**
      * Find featured movies/tvshows
      */
     List<Media> findByMediaTypeAndFeatured(String mediaType, Boolean featured);
     
     /**
-     * Find media by title containing search term (case insensitive)
+     * Find media by title containing search term (case insensitive); derived, so the
+     * term is quoted and matched literally
      */
-    @Query("{'title': {$regex: ?0, $options: 'i'}}")
     List<Media> findByTitleContainingIgnoreCase(String title);
     
     /**
@@ -32,6 +44,11 @@ public interface MediaRepository extends MongoRepository<Media, String> {
     @Query("{'title': {$regex: ?0, $options: 'i'}, 'mediaType': ?1}")
     List<Media> findByTitleContainingIgnoreCaseAndMediaType(String title, String mediaType);
     
+    /**
+     * Stream the whole collection with a cursor (used to build in-memory indexes)
+     */
+    Stream<Media> streamAllBy();
+    
     /**
      * Check if media exists by title and media type
      */
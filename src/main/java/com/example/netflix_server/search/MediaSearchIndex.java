@@ -0,0 +1,258 @@
+package com.example.netflix_server.search;
+
+import com.example.netflix_server.dto.MediaResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram inverted index over media titles.
+ *
+ * Every indexed item gets an ordinal; each trigram of its normalized title maps to
+ * a posting list of ordinals in ascending order. A "title contains" query intersects
+ * the posting lists of the query's trigrams and verifies the survivors, so search
+ * cost depends on the number of candidates rather than on the catalog size.
+ *
+ * Updates are append-only: a changed item gets a new ordinal and its old ordinal
+ * becomes a tombstone that queries skip. The index is compacted once tombstones
+ * make up a quarter of the ordinals.
+ */
+public class MediaSearchIndex {
+
+    private static final int COMPACTION_MIN_TOMBSTONES = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // ordinal -> item and normalized title, null once the ordinal is a tombstone
+    private final List<MediaResponse> docs = new ArrayList<>();
+    private final List<String> titles = new ArrayList<>();
+    private final Map<String, Integer> ordinalById = new HashMap<>();
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private int tombstones;
+
+    /**
+     * Normalize a title or query for matching (case-insensitive, trimmed)
+     */
+    public static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Add an item, or replace the indexed version of an existing one
+     */
+    public void upsert(MediaResponse media) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(media.getId());
+            addInternal(media);
+            maybeCompact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add or replace a batch of items under a single lock acquisition
+     */
+    public void upsertAll(Iterable<MediaResponse> mediaItems) {
+        lock.writeLock().lock();
+        try {
+            for (MediaResponse media : mediaItems) {
+                removeInternal(media.getId());
+                addInternal(media);
+            }
+            maybeCompact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove an item from the index
+     */
+    public void remove(String mediaId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(mediaId);
+            maybeCompact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the whole index content, used for the initial build
+     */
+    public void rebuild(Iterable<MediaResponse> mediaItems) {
+        lock.writeLock().lock();
+        try {
+            clear();
+            for (MediaResponse media : mediaItems) {
+                removeInternal(media.getId());
+                addInternal(media);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find every item whose title contains the query (case-insensitive)
+     * @return matches in index order
+     */
+    public List<MediaResponse> search(String query) {
+        String needle = normalize(query);
+        lock.readLock().lock();
+        try {
+            if (needle.length() < 3) {
+                return scan(needle);
+            }
+
+            long[] grams = trigrams(needle);
+            PostingList[] lists = new PostingList[grams.length];
+            for (int i = 0; i < grams.length; i++) {
+                lists[i] = postings.get(grams[i]);
+                if (lists[i] == null) {
+                    return List.of();
+                }
+            }
+            // Intersect starting from the rarest trigram to keep the candidate set small
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+            List<MediaResponse> results = new ArrayList<>();
+            PostingList smallest = lists[0];
+            int[] cursors = new int[lists.length];
+            candidates:
+            for (int i = 0; i < smallest.size; i++) {
+                int ordinal = smallest.ordinals[i];
+                for (int l = 1; l < lists.length; l++) {
+                    if (!lists[l].advanceTo(ordinal, cursors, l)) {
+                        continue candidates;
+                    }
+                }
+                MediaResponse media = docs.get(ordinal);
+                // Trigrams only prove the pieces are present, check they are contiguous
+                if (media != null && titles.get(ordinal).contains(needle)) {
+                    results.add(media);
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of live items in the index
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<MediaResponse> scan(String needle) {
+        List<MediaResponse> results = new ArrayList<>();
+        for (int ordinal = 0; ordinal < docs.size(); ordinal++) {
+            MediaResponse media = docs.get(ordinal);
+            if (media != null && titles.get(ordinal).contains(needle)) {
+                results.add(media);
+            }
+        }
+        return results;
+    }
+
+    private void addInternal(MediaResponse media) {
+        int ordinal = docs.size();
+        String title = normalize(media.getTitle());
+        docs.add(media);
+        titles.add(title);
+        ordinalById.put(media.getId(), ordinal);
+        if (title.length() >= 3) {
+            for (long gram : trigrams(title)) {
+                postings.computeIfAbsent(gram, g -> new PostingList()).add(ordinal);
+            }
+        }
+    }
+
+    private void removeInternal(String mediaId) {
+        Integer ordinal = ordinalById.remove(mediaId);
+        if (ordinal != null) {
+            docs.set(ordinal, null);
+            titles.set(ordinal, null);
+            tombstones++;
+        }
+    }
+
+    private void maybeCompact() {
+        if (tombstones < COMPACTION_MIN_TOMBSTONES || tombstones * 4 < docs.size()) {
+            return;
+        }
+        List<MediaResponse> live = new ArrayList<>(ordinalById.size());
+        for (MediaResponse media : docs) {
+            if (media != null) {
+                live.add(media);
+            }
+        }
+        clear();
+        for (MediaResponse media : live) {
+            addInternal(media);
+        }
+    }
+
+    private void clear() {
+        docs.clear();
+        titles.clear();
+        ordinalById.clear();
+        postings.clear();
+        tombstones = 0;
+    }
+
+    /**
+     * Distinct trigrams of a normalized string, each packed as three 16-bit chars
+     */
+    private static long[] trigrams(String text) {
+        long[] grams = new long[text.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+
+    /**
+     * Growable, ascending list of ordinals
+     */
+    private static final class PostingList {
+        private int[] ordinals = new int[4];
+        private int size;
+
+        void add(int ordinal) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+
+        /**
+         * Move this list's cursor forward to the first ordinal >= target
+         * @return true if the target itself is present
+         */
+        boolean advanceTo(int target, int[] cursors, int slot) {
+            int found = Arrays.binarySearch(ordinals, cursors[slot], size, target);
+            if (found >= 0) {
+                cursors[slot] = found;
+                return true;
+            }
+            cursors[slot] = -found - 1;
+            return false;
+        }
+    }
+}
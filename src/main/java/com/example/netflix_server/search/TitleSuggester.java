@@ -0,0 +1,259 @@
+package com.example.netflix_server.search;
+
+import com.example.netflix_server.dto.MediaSuggestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typeahead over normalized titles, backed by a radix (path-compressed) trie.
+ *
+ * Every node keeps the top-K suggestions of its whole subtree, so a lookup walks
+ * at most the length of the prefix and returns a precomputed array; there is no
+ * scan of the matching range. Writers are serialized and publish new arrays and
+ * nodes copy-on-write, which lets readers walk the trie without taking a lock.
+ */
+public class TitleSuggester {
+
+    private static final MediaSuggestion[] NONE = new MediaSuggestion[0];
+
+    // Most popular first, then alphabetical so ties are stable
+    private static final Comparator<MediaSuggestion> RANKING = Comparator
+            .comparingInt(MediaSuggestion::getPopularity).reversed()
+            .thenComparing(MediaSuggestion::getTitle)
+            .thenComparing(MediaSuggestion::getId);
+
+    private final int maxResults;
+    private final Node root = new Node("");
+
+    // media id -> key it is stored under, needed to find the entry on update/remove
+    private final Map<String, String> keyById = new HashMap<>();
+
+    public TitleSuggester(int maxResults) {
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Top suggestions whose normalized title starts with the prefix
+     * @param limit maximum results, capped at the configured maximum
+     */
+    public List<MediaSuggestion> suggest(String prefix, int limit) {
+        String key = MediaSearchIndex.normalize(prefix);
+        Node node = root;
+        int position = 0;
+        while (position < key.length()) {
+            node = node.child(key.charAt(position));
+            if (node == null) {
+                return List.of();
+            }
+            String label = node.label;
+            int matched = 0;
+            while (matched < label.length() && position < key.length()) {
+                if (label.charAt(matched++) != key.charAt(position++)) {
+                    return List.of();
+                }
+            }
+        }
+        MediaSuggestion[] top = node.top;
+        // Copy, so callers cannot write through to the shared top array
+        return List.of(Arrays.copyOf(top, Math.min(limit, top.length)));
+    }
+
+    /**
+     * Add a suggestion, or replace the stored version of an existing one
+     */
+    public synchronized void upsert(MediaSuggestion suggestion) {
+        removeInternal(suggestion.getId());
+        String key = MediaSearchIndex.normalize(suggestion.getTitle());
+        keyById.put(suggestion.getId(), key);
+
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int position = 0;
+        while (position < key.length()) {
+            Node child = node.child(key.charAt(position));
+            if (child == null) {
+                child = new Node(key.substring(position));
+                node.putChild(child);
+                node = child;
+                path.add(node);
+                break;
+            }
+            int common = commonPrefix(child.label, key, position);
+            if (common < child.label.length()) {
+                // The key diverges inside this edge: split it at the divergence point
+                Node split = new Node(child.label.substring(0, common));
+                Node rest = child.relabel(child.label.substring(common));
+                split.putChild(rest);
+                split.top = rest.top;
+                node.putChild(split);
+                child = split;
+            }
+            node = child;
+            path.add(node);
+            position += common;
+        }
+
+        node.entries = append(node.entries, suggestion);
+        refreshTop(path);
+    }
+
+    /**
+     * Remove a suggestion
+     */
+    public synchronized void remove(String mediaId) {
+        removeInternal(mediaId);
+    }
+
+    private void removeInternal(String mediaId) {
+        String key = keyById.remove(mediaId);
+        if (key == null) {
+            return;
+        }
+
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int position = 0;
+        while (position < key.length()) {
+            node = node.child(key.charAt(position));
+            path.add(node);
+            position += node.label.length();
+        }
+
+        node.entries = Arrays.stream(node.entries)
+                .filter(entry -> !entry.getId().equals(mediaId))
+                .toArray(MediaSuggestion[]::new);
+
+        // Drop nodes that no longer lead to any suggestion
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node current = path.get(i);
+            if (current.entries.length == 0 && current.children.length == 0) {
+                path.get(i - 1).removeChild(current);
+                path.remove(i);
+            } else {
+                break;
+            }
+        }
+        refreshTop(path);
+    }
+
+    /**
+     * Recompute the top-K arrays bottom-up along a root-to-node path
+     */
+    private void refreshTop(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            if (node.children.length == 0 && node.entries.length <= maxResults) {
+                // A leaf's own entries are its whole subtree, share the sorted array
+                MediaSuggestion[] sorted = node.entries.clone();
+                Arrays.sort(sorted, RANKING);
+                node.entries = sorted;
+                node.top = sorted;
+                continue;
+            }
+            List<MediaSuggestion> candidates = new ArrayList<>(Arrays.asList(node.entries));
+            for (Node child : node.children) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            candidates.sort(RANKING);
+            node.top = candidates.subList(0, Math.min(maxResults, candidates.size()))
+                    .toArray(NONE);
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int length = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < length && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static MediaSuggestion[] append(MediaSuggestion[] array, MediaSuggestion value) {
+        MediaSuggestion[] copy = Arrays.copyOf(array, array.length + 1);
+        copy[array.length] = value;
+        return copy;
+    }
+
+    /**
+     * Trie node. The label is the edge from the parent; arrays are never modified
+     * after they are published, only replaced.
+     */
+    private static final class Node {
+        private static final Node[] LEAF = new Node[0];
+
+        final String label;
+        // sorted by the first char of each child's label
+        volatile Node[] children = LEAF;
+        volatile MediaSuggestion[] entries = NONE;
+        volatile MediaSuggestion[] top = NONE;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node child(char first) {
+            Node[] current = children;
+            int low = 0;
+            int high = current.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char c = current[mid].label.charAt(0);
+                if (c < first) {
+                    low = mid + 1;
+                } else if (c > first) {
+                    high = mid - 1;
+                } else {
+                    return current[mid];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Copy of this node under a new label, sharing its children and entries
+         */
+        Node relabel(String newLabel) {
+            Node copy = new Node(newLabel);
+            copy.children = children;
+            copy.entries = entries;
+            copy.top = top;
+            return copy;
+        }
+
+        /**
+         * Insert a child, replacing any existing child with the same first char
+         */
+        void putChild(Node child) {
+            Node[] current = children;
+            char first = child.label.charAt(0);
+            int index = 0;
+            while (index < current.length && current[index].label.charAt(0) < first) {
+                index++;
+            }
+            Node[] updated;
+            if (index < current.length && current[index].label.charAt(0) == first) {
+                updated = current.clone();
+            } else {
+                updated = new Node[current.length + 1];
+                System.arraycopy(current, 0, updated, 0, index);
+                System.arraycopy(current, index, updated, index + 1, current.length - index);
+            }
+            updated[index] = child;
+            children = updated;
+        }
+
+        void removeChild(Node child) {
+            children = Arrays.stream(children)
+                    .filter(existing -> existing != child)
+                    .toArray(Node[]::new);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.netflix_server.security;
+
+import java.security.Principal;
+import java.time.Instant;
+
+/**
+ * Principal built from verified JWT claims.
+ *
+ * Implements Principal so Authentication.getName() keeps returning the email.
+ * The token id (jti) is what gets recorded when the token is revoked.
+ */
+public record AuthenticatedUser(String email, String userId, String tokenId, Instant expiresAt) implements Principal {
+    
+    @Override
+    public String getName() {
+        return email;
+    }
+}
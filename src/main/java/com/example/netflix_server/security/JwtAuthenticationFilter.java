@@ -1,6 +1,7 @@
 package com.example.netflix_server.security;
 
-import com.example.netflix_server.util.JwtUtil;
+import com.example.netflix_server.jfr.AuthFilterEvent;
+import com.example.netflix_server.jfr.RequestRoutes;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,25 +22,43 @@ import java.util.ArrayList;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     @Autowired
-    private JwtUtil jwtUtil;
+    private VerifiedTokenCache verifiedTokenCache;
+    
+    @Autowired
+    private TokenRevocationStore tokenRevocationStore;
     
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, 
                                   @NonNull FilterChain filterChain) throws ServletException, IOException {
         
+        AuthFilterEvent event = new AuthFilterEvent();
+        event.begin();
+        String outcome = AuthFilterEvent.NO_TOKEN;
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtil.validateJwtToken(jwt)) {
-                String email = jwtUtil.getEmailFromJwtToken(jwt);
-                
+            // Verified once per token, then served from the cache until it expires
+            AuthenticatedUser user = jwt != null ? verifiedTokenCache.verify(jwt) : null;
+            if (jwt != null) {
+                outcome = user == null ? AuthFilterEvent.INVALID : AuthFilterEvent.AUTHENTICATED;
+            }
+            // Revocations are checked in memory on every request, including cached tokens
+            if (user != null && tokenRevocationStore.isRevoked(user.tokenId())) {
+                outcome = AuthFilterEvent.REVOKED;
+            } else if (user != null) {
                 UsernamePasswordAuthenticationToken authentication = 
-                    new UsernamePasswordAuthenticationToken(email, null, new ArrayList<>());
+                    new UsernamePasswordAuthenticationToken(user, null, new ArrayList<>());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
         } catch (Exception e) {
-            System.err.println("Cannot set user authentication: " + e.getMessage());
+            logger.warn("Cannot set user authentication: " + e.getMessage());
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.route = RequestRoutes.of(request);
+            event.outcome = outcome;
+            event.commit();
         }
         
         filterChain.doFilter(request, response);
@@ -0,0 +1,216 @@
+package com.example.netflix_server.security;
+
+import com.example.netflix_server.dto.ApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client token-bucket rate limiting, applied before authentication.
+ *
+ * Each route policy has its own bounded bucket map (Caffeine: striped, lock-free
+ * reads, idle entries evicted). A bucket is a single AtomicLong holding the
+ * bucket's "theoretical arrival time" (the GCRA form of a token bucket), so taking
+ * a token is one CAS and never blocks. Clients are keyed by user id when the
+ * request carries a valid token, otherwise by remote address.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rate-limit.max-clients:100000}")
+    private long maxClients;
+
+    @Value("${rate-limit.idle-timeout:PT10M}")
+    private Duration idleTimeout;
+
+    @Value("${rate-limit.login.capacity:10}")
+    private int loginCapacity;
+
+    @Value("${rate-limit.login.per-minute:10}")
+    private int loginPerMinute;
+
+    @Value("${rate-limit.register.capacity:5}")
+    private int registerCapacity;
+
+    @Value("${rate-limit.register.per-minute:5}")
+    private int registerPerMinute;
+
+    @Value("${rate-limit.search.capacity:20}")
+    private int searchCapacity;
+
+    @Value("${rate-limit.search.per-minute:120}")
+    private int searchPerMinute;
+
+    @Value("${rate-limit.default.capacity:200}")
+    private int defaultCapacity;
+
+    @Value("${rate-limit.default.per-minute:6000}")
+    private int defaultPerMinute;
+
+    // Checked in order, first match wins
+    private List<Policy> policies;
+
+    @PostConstruct
+    void initPolicies() {
+        policies = List.of(
+            // Login and registration are keyed by address: the caller has no token yet
+            new Policy("login", "POST", "/api/v1/auth/login", false, loginCapacity, loginPerMinute),
+            new Policy("register", "POST", "/api/v1/users/register", false, registerCapacity, registerPerMinute),
+            new Policy("search", "GET", "/api/v1/media/search", true, searchCapacity, searchPerMinute),
+            new Policy("default", null, "/api/", true, defaultCapacity, defaultPerMinute)
+        );
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                  @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        Policy policy = match(request);
+        if (policy != null) {
+            long waitNanos = policy.tryAcquire(clientKey(request, policy));
+            if (waitNanos > 0) {
+                reject(response, policy, waitNanos);
+                return;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private Policy match(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        String method = request.getMethod();
+        for (Policy policy : policies) {
+            if (policy.matches(method, path)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * User id from the bearer token if it verifies (cached), otherwise the client address
+     * (resolved from X-Forwarded-For by the server's forwarded-header handling)
+     */
+    private String clientKey(HttpServletRequest request, Policy policy) {
+        if (policy.perUser) {
+            String headerAuth = request.getHeader("Authorization");
+            if (StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer ")) {
+                AuthenticatedUser user = verifiedTokenCache.verify(headerAuth.substring(7));
+                if (user != null && user.userId() != null) {
+                    return "u:" + user.userId();
+                }
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, Policy policy, long waitNanos) throws IOException {
+        policy.rejected.increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+            ApiResponse.error("Too many requests, please retry later"));
+    }
+
+    /**
+     * A route and its limit: a burst of capacity requests, refilled at perMinute
+     */
+    private final class Policy {
+        final String method;
+        final String path;
+        final boolean prefix;
+        final boolean perUser;
+        final long intervalNanos;
+        final long burstNanos;
+        final Cache<String, AtomicLong> buckets;
+        final Counter rejected;
+
+        Policy(String name, String method, String path, boolean perUser, int capacity, int perMinute) {
+            this.method = method;
+            // Paths ending in / match everything beneath them
+            this.prefix = path.endsWith("/");
+            this.path = path;
+            this.perUser = perUser;
+            this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute);
+            this.burstNanos = intervalNanos * Math.max(1, capacity);
+            this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(idleTimeout)
+                .build();
+            this.rejected = Counter.builder("rate.limit.rejected")
+                .tag("policy", name)
+                .register(meterRegistry);
+        }
+
+        boolean matches(String requestMethod, String requestPath) {
+            if (method != null && !method.equals(requestMethod)) {
+                return false;
+            }
+            return prefix ? requestPath.startsWith(path) : requestPath.equals(path);
+        }
+
+        /**
+         * Take one token for the client
+         * @return 0 if allowed, otherwise nanoseconds until a token is available
+         */
+        long tryAcquire(String clientKey) {
+            AtomicLong bucket = buckets.get(clientKey, key -> new AtomicLong(Long.MIN_VALUE));
+            while (true) {
+                long now = System.nanoTime();
+                long current = bucket.get();
+                // An idle bucket is full: its arrival time never lags behind now
+                long arrival = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+                long next = arrival + intervalNanos;
+                long ahead = next - now;
+                if (ahead > burstNanos) {
+                    return ahead - burstNanos;
+                }
+                if (bucket.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.netflix_server.security;
+
+import com.example.netflix_server.model.RevokedToken;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked access token ids (jti), checked on every authenticated request.
+ *
+ * Lookups never leave the process: a Bloom filter answers the common "not revoked"
+ * case with a few bit reads, and only possible hits consult the exact map of
+ * revoked ids. Revocations are written to the revoked_tokens collection and other
+ * instances pick them up by polling. Entries are pruned once the token would have
+ * expired anyway, and the Bloom filter is rebuilt from the survivors.
+ */
+@Component
+public class TokenRevocationStore {
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${security.revocation.expected-entries:100000}")
+    private long expectedEntries;
+    
+    @Value("${security.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+    
+    // Re-read window when polling, covers clock skew between instances
+    @Value("${security.revocation.poll-overlap:PT30S}")
+    private Duration pollOverlap;
+    
+    // jti -> expiry of the revoked token, in epoch millis
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    
+    // Replaced, never cleared; writers hold the store's lock so a rebuild cannot drop an add
+    private volatile BloomFilter bloomFilter;
+    
+    private volatile Instant lastPolled = Instant.EPOCH;
+    
+    @PostConstruct
+    void loadRevocations() {
+        bloomFilter = new BloomFilter(expectedEntries, falsePositiveRate);
+        pollRevocations();
+        Gauge.builder("auth.revoked.tokens", revoked, Map::size)
+            .description("Revoked access tokens that have not expired yet")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Check if an access token has been revoked (in memory only)
+     * @param tokenId the token's jti claim, may be null for tokens issued without one
+     */
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null || !bloomFilter.mightContain(tokenId)) {
+            return false;
+        }
+        return revoked.containsKey(tokenId);
+    }
+    
+    /**
+     * Revoke an access token on every instance
+     * @param expiresAt when the token expires; the revocation is forgotten after that
+     */
+    public void revoke(String tokenId, Instant expiresAt) {
+        if (tokenId == null || !expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+        remember(tokenId, expiresAt.toEpochMilli());
+        mongoTemplate.save(new RevokedToken(tokenId, Instant.now(), expiresAt));
+    }
+    
+    /**
+     * Pick up revocations made by other instances
+     */
+    @Scheduled(fixedDelayString = "${security.revocation.poll-interval:PT10S}")
+    public void pollRevocations() {
+        Instant pollStartedAt = Instant.now();
+        Query query = Query.query(Criteria.where("revokedAt").gte(lastPolled.minus(pollOverlap))
+            .and("expiresAt").gt(pollStartedAt));
+        query.fields().include("expiresAt");
+        List<RevokedToken> tokens = mongoTemplate.find(query, RevokedToken.class);
+        for (RevokedToken token : tokens) {
+            if (!revoked.containsKey(token.getId())) {
+                remember(token.getId(), token.getExpiresAt().toEpochMilli());
+            }
+        }
+        lastPolled = pollStartedAt;
+    }
+    
+    /**
+     * Forget expired revocations and rebuild the Bloom filter from the rest
+     */
+    @Scheduled(fixedDelayString = "${security.revocation.prune-interval:PT1M}")
+    public synchronized void prune() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        // Grow the filter if revocations outnumber what it was sized for
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, 2L * revoked.size()), falsePositiveRate);
+        revoked.keySet().forEach(rebuilt::add);
+        bloomFilter = rebuilt;
+    }
+    
+    private synchronized void remember(String tokenId, long expiresAtMillis) {
+        // Exact entry first, so a reader that sees the Bloom bit always finds it
+        revoked.put(tokenId, expiresAtMillis);
+        bloomFilter.add(tokenId);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.netflix_server.security;
+
+import com.example.netflix_server.util.JwtUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * Cache of verified JWT principals, keyed by a SHA-256 digest of the token.
+ *
+ * A token's signature is checked once; later requests with the same token are
+ * answered from memory until the token expires or the entry reaches its maximum
+ * age. Raw tokens are never stored.
+ */
+@Component
+public class VerifiedTokenCache {
+    
+    @Autowired
+    private JwtUtil jwtUtil;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${security.token-cache.max-entries:100000}")
+    private long maxEntries;
+    
+    @Value("${security.token-cache.max-ttl:PT5M}")
+    private Duration maxTtl;
+    
+    private Cache<String, AuthenticatedUser> cache;
+    
+    @PostConstruct
+    void initCache() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, AuthenticatedUser>() {
+                    @Override
+                    public long expireAfterCreate(String key, AuthenticatedUser user, long currentTime) {
+                        // Never outlive the token itself
+                        Duration untilExpiry = Duration.between(Instant.now(), user.expiresAt());
+                        return Math.max(0, Math.min(untilExpiry.toNanos(), maxTtl.toNanos()));
+                    }
+                    
+                    @Override
+                    public long expireAfterUpdate(String key, AuthenticatedUser user, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+                    
+                    @Override
+                    public long expireAfterRead(String key, AuthenticatedUser user, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.token.cache");
+    }
+    
+    /**
+     * Get the principal of a token, verifying it on a cache miss
+     * @return the principal, or null if the token does not verify
+     */
+    public AuthenticatedUser verify(String token) {
+        String key = digest(token);
+        AuthenticatedUser cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        
+        try {
+            AuthenticatedUser user = jwtUtil.parseAndVerify(token);
+            cache.put(key, user);
+            return user;
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Forget a token, e.g. after it was revoked
+     */
+    public void invalidate(String token) {
+        cache.invalidate(digest(token));
+    }
+    
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
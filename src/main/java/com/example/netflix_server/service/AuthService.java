@@ -3,15 +3,28 @@ package com.example.netflix_server.service;
 import com.example.netflix_server.dto.LoginRequest;
 import com.example.netflix_server.dto.LoginResponse;
 import com.example.netflix_server.dto.UserResponse;
+import com.example.netflix_server.model.RefreshToken;
 import com.example.netflix_server.model.User;
 import com.example.netflix_server.repository.UserRepository;
+import com.example.netflix_server.security.AuthenticatedUser;
+import com.example.netflix_server.security.TokenRevocationStore;
 import com.example.netflix_server.util.JwtUtil;
+import com.example.netflix_server.jfr.PasswordCheckEvent;
+import com.example.netflix_server.jfr.RepositoryCallEvent;
+import com.example.netflix_server.jfr.RequestRoutes;
+import com.example.netflix_server.exception.InvalidTokenException;
 import com.example.netflix_server.exception.UserNotFoundException;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.util.Set;
+
 @Service
 public class AuthService {
     
@@ -19,29 +32,63 @@ public class AuthService {
     private UserRepository userRepository;
     
     @Autowired
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
     
     @Autowired
     private JwtUtil jwtUtil;
     
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    
+    @Autowired
+    private TokenRevocationStore tokenRevocationStore;
+    
+    @Autowired
+    private UserService userService;
+    
+    // Accounts allowed to use the /api/v1/admin endpoints
+    @Value("${app.admin.emails:}")
+    private Set<String> adminEmails;
+    
     /**
      * Authenticate user with email and password
      * @param loginRequest login credentials
-     * @return LoginResponse with JWT token and user info
+     * @return LoginResponse with a short-lived JWT, a refresh token and user info
      * @throws UserNotFoundException if authentication fails
      */
     public LoginResponse authenticateUser(LoginRequest loginRequest) {
         // Find user by email
-        User user = userRepository.findByEmail(loginRequest.getEmail())
+        User user = RepositoryCallEvent.record("users", "findByEmail", "find {email}",
+                () -> userRepository.findByEmail(loginRequest.getEmail()))
             .orElseThrow(() -> new UserNotFoundException("Invalid email or password"));
         
         // Check password
-        if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
+        PasswordCheckEvent event = new PasswordCheckEvent();
+        event.begin();
+        boolean matched = passwordHashingService.matches(loginRequest.getPassword(), user.getPassword());
+        boolean rehashNeeded = matched && passwordHashingService.needsRehash(user.getPassword());
+        event.end();
+        if (event.shouldCommit()) {
+            event.route = RequestRoutes.current();
+            event.matched = matched;
+            event.rehashNeeded = rehashNeeded;
+            event.commit();
+        }
+        if (!matched) {
             throw new UserNotFoundException("Invalid email or password");
         }
         
-        // Generate JWT token
+        // Transparently move the stored hash to the configured cost factor
+        if (rehashNeeded) {
+            rehashPassword(user, loginRequest.getPassword());
+        }
+        
+        // Generate JWT token, plus a refresh token that starts a new rotation family
         String token = jwtUtil.generateJwtToken(user.getEmail(), user.getId());
+        String refreshToken = refreshTokenService.issue(user.getId(), user.getEmail(), null);
         
         // Create user response (without password)
         UserResponse userResponse = new UserResponse(
@@ -51,31 +98,86 @@ public class AuthService {
             user.getEmail()
         );
         
-        return new LoginResponse(token, userResponse);
+        return new LoginResponse(token, refreshToken, accessTokenLifetimeSeconds(), userResponse);
+    }
+    
+    /**
+     * Exchange a refresh token for a new access token and a new refresh token
+     * The presented refresh token is consumed and cannot be used again.
+     * @param rawRefreshToken the refresh token returned by login or a previous refresh
+     * @return LoginResponse with the new token pair and user info
+     * @throws InvalidTokenException if the refresh token is invalid, expired or reused
+     */
+    public LoginResponse refresh(String rawRefreshToken) {
+        RefreshToken consumed = refreshTokenService.consume(rawRefreshToken);
+        
+        String token = jwtUtil.generateJwtToken(consumed.getEmail(), consumed.getUserId());
+        String refreshToken = refreshTokenService.issue(consumed.getUserId(), consumed.getEmail(), consumed.getFamilyId());
+        UserResponse userResponse = userService.getUserById(consumed.getUserId());
+        
+        return new LoginResponse(token, refreshToken, accessTokenLifetimeSeconds(), userResponse);
+    }
+    
+    /**
+     * Log out: revoke the current access token and the refresh token family
+     * @param authenticatedUser principal of the access token, null if none was presented
+     * @param rawRefreshToken refresh token to revoke, may be null
+     */
+    public void logout(AuthenticatedUser authenticatedUser, String rawRefreshToken) {
+        if (authenticatedUser != null) {
+            tokenRevocationStore.revoke(authenticatedUser.tokenId(), authenticatedUser.expiresAt());
+        }
+        if (rawRefreshToken != null && !rawRefreshToken.isBlank()) {
+            refreshTokenService.revoke(rawRefreshToken);
+        }
     }
     
     /**
      * Validate if the authenticated user can access the requested user data
-     * @param authenticatedEmail email from JWT token
+     * Checked against the token claims in memory, without a database lookup.
+     * @param authenticatedUser principal built from the JWT
      * @param requestedUserId ID of user data being requested
      * @return true if access is allowed
      */
-    public boolean canAccessUserData(String authenticatedEmail, String requestedUserId) {
-        User authenticatedUser = userRepository.findByEmail(authenticatedEmail)
-            .orElseThrow(() -> new UserNotFoundException("Authenticated user not found"));
-        
+    public boolean canAccessUserData(AuthenticatedUser authenticatedUser, String requestedUserId) {
         // User can only access their own data
-        return authenticatedUser.getId().equals(requestedUserId);
+        return authenticatedUser.userId() != null && authenticatedUser.userId().equals(requestedUserId);
     }
     
     /**
      * Validate if the authenticated user can access the requested user data by email
-     * @param authenticatedEmail email from JWT token
+     * @param authenticatedUser principal built from the JWT
      * @param requestedEmail email of user data being requested
      * @return true if access is allowed
      */
-    public boolean canAccessUserDataByEmail(String authenticatedEmail, String requestedEmail) {
+    public boolean canAccessUserDataByEmail(AuthenticatedUser authenticatedUser, String requestedEmail) {
         // User can only access their own data
-        return authenticatedEmail.equals(requestedEmail);
+        return authenticatedUser.email().equals(requestedEmail);
+    }
+    
+    /**
+     * Check if the authenticated user is an administrator
+     * @param authenticatedUser principal built from the JWT
+     * @return true if the user's email is listed in app.admin.emails
+     */
+    public boolean isAdmin(AuthenticatedUser authenticatedUser) {
+        return authenticatedUser != null && adminEmails.contains(authenticatedUser.email());
+    }
+    
+    private long accessTokenLifetimeSeconds() {
+        return jwtUtil.getJwtExpirationMs() / 1000L;
+    }
+    
+    /**
+     * Replace a user's password hash in the background
+     * Only applied if the stored hash is still the one that was verified.
+     */
+    private void rehashPassword(User user, String rawPassword) {
+        String oldHash = user.getPassword();
+        passwordHashingService.encodeInBackground(rawPassword, newHash -> mongoTemplate.updateFirst(
+            Query.query(Criteria.where("_id").is(user.getId()).and("password").is(oldHash)),
+            Update.update("password", newHash),
+            User.class
+        ));
     }
 }
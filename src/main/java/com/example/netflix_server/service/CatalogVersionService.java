@@ -0,0 +1,121 @@
+package com.example.netflix_server.service;
+
+import com.example.netflix_server.model.CatalogVersion;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Monotonically increasing version of the media catalog.
+ *
+ * The counter lives in Mongo so it survives restarts, and a copy is kept in
+ * memory so conditional GETs can be answered without a round trip. Writes made
+ * by other instances (or straight to Mongo) are picked up by polling; listeners
+ * drop their cached catalog data before the new version is published, so the
+ * new ETag is never served with old content.
+ */
+@Service
+public class CatalogVersionService {
+    
+    private static final String CATALOG_ID = "media";
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    private volatile CatalogVersion current;
+    
+    private final List<Runnable> externalChangeListeners = new CopyOnWriteArrayList<>();
+    
+    @PostConstruct
+    void loadVersion() {
+        CatalogVersion stored = mongoTemplate.findById(CATALOG_ID, CatalogVersion.class);
+        current = stored != null
+            ? stored
+            : new CatalogVersion(CATALOG_ID, 0L, Instant.now().truncatedTo(ChronoUnit.SECONDS));
+    }
+    
+    /**
+     * Record a catalog write
+     * @return the new version
+     */
+    public long bump() {
+        long previous = current.getVersion();
+        // HTTP dates have second precision, so store what clients will send back
+        Update update = new Update()
+            .inc("version", 1)
+            .set("updatedAt", Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        CatalogVersion updated = mongoTemplate.findAndModify(
+            Query.query(Criteria.where("_id").is(CATALOG_ID)),
+            update,
+            FindAndModifyOptions.options().returnNew(true).upsert(true),
+            CatalogVersion.class
+        );
+        // A gap means someone else wrote since the version was last seen (possibly a
+        // concurrent local bump, which only costs a needless reload); drop cached data
+        // before publishing, as pollVersion would have, or it would never be reloaded
+        if (updated.getVersion() > previous + 1) {
+            externalChangeListeners.forEach(Runnable::run);
+        }
+        // Concurrent bumps can return out of order, never move the cached copy backwards
+        synchronized (this) {
+            if (updated.getVersion() > current.getVersion()) {
+                current = updated;
+            }
+        }
+        return updated.getVersion();
+    }
+    
+    /**
+     * Run a callback when the catalog changes without going through this instance's bump()
+     */
+    public void onExternalChange(Runnable listener) {
+        externalChangeListeners.add(listener);
+    }
+    
+    /**
+     * Pick up versions written by other instances, migrations and direct imports
+     */
+    @Scheduled(fixedDelayString = "${media.catalog.version-poll-interval:PT5S}")
+    public void pollVersion() {
+        CatalogVersion stored = mongoTemplate.findById(CATALOG_ID, CatalogVersion.class);
+        if (stored == null || stored.getVersion() <= current.getVersion()) {
+            return;
+        }
+        externalChangeListeners.forEach(Runnable::run);
+        synchronized (this) {
+            if (stored.getVersion() > current.getVersion()) {
+                current = stored;
+            }
+        }
+    }
+    
+    public long getVersion() {
+        return current.getVersion();
+    }
+    
+    /**
+     * Time of the last catalog write in epoch milliseconds
+     */
+    public long getLastModified() {
+        return current.getUpdatedAt().toEpochMilli();
+    }
+    
+    /**
+     * ETag shared by every catalog representation at the current version
+     */
+    public String getEtag() {
+        return "\"catalog-" + current.getVersion() + "\"";
+    }
+}
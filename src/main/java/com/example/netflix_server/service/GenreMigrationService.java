@@ -0,0 +1,89 @@
+package com.example.netflix_server.service;
+
+import com.example.netflix_server.model.Media;
+import com.example.netflix_server.util.GenreNormalizer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.stream.Stream;
+
+/**
+ * Background migration that fills Media.genres for documents written before
+ * genres were normalized. It is idempotent: only documents without the array
+ * are touched, so it can safely run on every start.
+ */
+@Service
+public class GenreMigrationService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(GenreMigrationService.class);
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private MediaService mediaService;
+    
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+    
+    @Autowired
+    private TaskExecutor applicationTaskExecutor;
+    
+    @Value("${media.genre-migration.batch-size:500}")
+    private int batchSize;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void startMigration() {
+        applicationTaskExecutor.execute(this::migrate);
+    }
+    
+    /**
+     * Normalize the genre string of every unmigrated document in unordered batches
+     * @return number of documents updated
+     */
+    public long migrate() {
+        Query pending = Query.query(Criteria.where("genres").exists(false));
+        pending.fields().include("genre");
+        
+        long migrated = 0;
+        int pendingOps = 0;
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Media.class);
+        try (Stream<Media> mediaStream = mongoTemplate.stream(pending, Media.class)) {
+            for (Media media : (Iterable<Media>) mediaStream::iterator) {
+                bulkOps.updateOne(
+                    // re-check the condition so a concurrent write is never overwritten
+                    Query.query(Criteria.where("id").is(media.getId()).and("genres").exists(false)),
+                    new Update().set("genres", GenreNormalizer.normalize(media.getGenre()))
+                );
+                if (++pendingOps == batchSize) {
+                    migrated += bulkOps.execute().getModifiedCount();
+                    bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Media.class);
+                    pendingOps = 0;
+                }
+            }
+        }
+        if (pendingOps > 0) {
+            migrated += bulkOps.execute().getModifiedCount();
+        }
+        
+        if (migrated > 0) {
+            logger.info("Normalized genres of {} media documents", migrated);
+            // Cached responses and the search index still hold the unmigrated documents
+            mediaService.reloadCatalog();
+            catalogVersionService.bump();
+        }
+        return migrated;
+    }
+}
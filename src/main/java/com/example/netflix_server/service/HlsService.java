@@ -0,0 +1,355 @@
+package com.example.netflix_server.service;
+
+import com.example.netflix_server.exception.UserNotFoundException;
+import com.example.netflix_server.jfr.RepositoryCallEvent;
+import com.example.netflix_server.model.Media;
+import com.example.netflix_server.model.Rendition;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * HLS playlists generated from pre-encoded renditions on disk.
+ *
+ * A media item's hlsDirectory holds one subdirectory per rendition listed in
+ * Media.renditions, each containing numbered segments (.ts, .m4s or .aac) and, for
+ * fMP4, an init.mp4. The master and variant playlists are built from a directory
+ * scan on first request and cached; a WatchService on the scanned directories
+ * drops a media item's playlists as soon as any of its files change, and the TTL
+ * picks up edits to the Media document itself.
+ */
+@Service
+public class HlsService {
+    
+    private static final Logger log = LoggerFactory.getLogger(HlsService.class);
+    
+    private static final String INIT_SEGMENT = "init.mp4";
+    private static final Set<String> SEGMENT_EXTENSIONS = Set.of("ts", "m4s", "aac");
+    
+    private static final Pattern CODECS = Pattern.compile(Rendition.CODECS_PATTERN);
+    
+    // Natural order for unpadded numbering: seg9.ts before seg10.ts
+    private static final Comparator<String> SEGMENT_ORDER =
+        Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder());
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private VideoStreamService videoStreamService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${media.hls.cache-max-entries:1000}")
+    private long cacheMaxEntries;
+    
+    @Value("${media.hls.cache-ttl:PT5M}")
+    private Duration cacheTtl;
+    
+    /**
+     * A generated playlist
+     * @param etag strong validator over the playlist text
+     */
+    public record Playlist(String content, String etag) {
+    }
+    
+    /**
+     * A segment of a variant playlist
+     * @param index position in the playlist, -1 for the init segment
+     * @param bandwidth peak bitrate of the segment's rendition
+     */
+    public record Segment(Path path, int index, long bandwidth) {
+    }
+    
+    // segments: playlist order; files: every servable name -> its index
+    private record Variant(Path directory, Playlist playlist, List<String> segments, Map<String, Integer> files,
+                           long bandwidth) {
+    }
+    
+    private record HlsPackage(Playlist master, Map<String, Variant> variants) {
+    }
+    
+    private Cache<String, HlsPackage> packages;
+    
+    private WatchService watchService;
+    
+    // Watched directory -> media ids whose playlists were built from it
+    private final Map<WatchKey, Set<String>> watchers = new ConcurrentHashMap<>();
+    
+    private final Map<Path, WatchKey> watchedDirectories = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    void init() throws IOException {
+        packages = Caffeine.newBuilder()
+            .maximumSize(cacheMaxEntries)
+            .expireAfterWrite(cacheTtl)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, packages, "media.hls.playlists");
+        
+        watchService = FileSystems.getDefault().newWatchService();
+        Thread watcher = new Thread(this::watchLoop, "hls-playlist-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+    
+    @PreDestroy
+    void shutdown() throws IOException {
+        watchService.close();
+    }
+    
+    /**
+     * Master playlist listing every rendition that has segments on disk
+     * @throws UserNotFoundException if the media has no HLS renditions
+     */
+    public Playlist getMasterPlaylist(String mediaId) {
+        return getPackage(mediaId).master();
+    }
+    
+    /**
+     * Variant (media) playlist of one rendition
+     * @throws UserNotFoundException if the rendition does not exist
+     */
+    public Playlist getVariantPlaylist(String mediaId, String rendition) {
+        return getVariant(mediaId, rendition).playlist();
+    }
+    
+    /**
+     * Resolve a segment listed in a variant playlist; names not in the playlist are rejected
+     * @throws UserNotFoundException if the rendition or segment does not exist
+     */
+    public Segment getSegment(String mediaId, String rendition, String segment) {
+        Variant variant = getVariant(mediaId, rendition);
+        Integer index = variant.files().get(segment);
+        if (index == null) {
+            throw new UserNotFoundException("Segment " + segment + " not found");
+        }
+        return new Segment(variant.directory().resolve(segment), index, variant.bandwidth());
+    }
+    
+    /**
+     * The segments that follow a position in a variant playlist, for read-ahead
+     */
+    public List<Path> getSegmentsAfter(String mediaId, String rendition, int index, int count) {
+        Variant variant = getVariant(mediaId, rendition);
+        List<String> segments = variant.segments();
+        int from = Math.min(index + 1, segments.size());
+        return segments.subList(from, Math.min(from + count, segments.size())).stream()
+            .map(variant.directory()::resolve)
+            .collect(Collectors.toList());
+    }
+    
+    private Variant getVariant(String mediaId, String rendition) {
+        Variant variant = getPackage(mediaId).variants().get(rendition);
+        if (variant == null) {
+            throw new UserNotFoundException("Rendition " + rendition + " not found for media with ID " + mediaId);
+        }
+        return variant;
+    }
+    
+    private HlsPackage getPackage(String mediaId) {
+        HlsPackage hlsPackage = packages.get(mediaId, this::build);
+        if (hlsPackage == null) {
+            throw new UserNotFoundException("No HLS renditions available for media with ID " + mediaId);
+        }
+        return hlsPackage;
+    }
+    
+    private HlsPackage build(String mediaId) {
+        Query query = Query.query(Criteria.where("_id").is(mediaId));
+        query.fields().include("hlsDirectory").include("renditions");
+        Media media = RepositoryCallEvent.record("media", "findHlsAsset", "find {_id} project {hlsDirectory, renditions}",
+            () -> mongoTemplate.findOne(query, Media.class));
+        if (media == null || media.getHlsDirectory() == null || media.getRenditions() == null) {
+            return null;
+        }
+        Path directory = videoStreamService.resolve(media.getHlsDirectory());
+        if (directory == null || !Files.isDirectory(directory)) {
+            return null;
+        }
+        // Watch before scanning so a change made during the scan still invalidates
+        watch(directory, mediaId);
+        
+        Map<String, Variant> variants = new LinkedHashMap<>();
+        StringBuilder master = new StringBuilder("#EXTM3U\n#EXT-X-VERSION:3\n#EXT-X-INDEPENDENT-SEGMENTS\n");
+        for (Rendition rendition : media.getRenditions()) {
+            Path renditionDirectory = directory.resolve(rendition.getName()).normalize();
+            if (!renditionDirectory.startsWith(directory) || !Files.isDirectory(renditionDirectory)) {
+                continue;
+            }
+            watch(renditionDirectory, mediaId);
+            Variant variant = buildVariant(renditionDirectory, rendition);
+            if (variant == null) {
+                continue;
+            }
+            variants.put(rendition.getName(), variant);
+            
+            master.append("#EXT-X-STREAM-INF:BANDWIDTH=").append(rendition.getBandwidth());
+            if (rendition.getWidth() != null && rendition.getHeight() != null) {
+                master.append(",RESOLUTION=").append(rendition.getWidth()).append('x').append(rendition.getHeight());
+            }
+            // Re-checked here for documents written before the codecs were validated
+            if (rendition.getCodecs() != null && CODECS.matcher(rendition.getCodecs()).matches()) {
+                master.append(",CODECS=\"").append(rendition.getCodecs()).append('"');
+            }
+            master.append('\n').append(rendition.getName()).append("/index.m3u8\n");
+        }
+        if (variants.isEmpty()) {
+            return null;
+        }
+        return new HlsPackage(playlist(master.toString()), variants);
+    }
+    
+    private Variant buildVariant(Path directory, Rendition rendition) {
+        List<Path> segments;
+        boolean hasInit;
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> all = files.filter(Files::isRegularFile).collect(Collectors.toList());
+            hasInit = all.stream().anyMatch(file -> file.getFileName().toString().equals(INIT_SEGMENT));
+            segments = all.stream()
+                .filter(file -> SEGMENT_EXTENSIONS.contains(extension(file.getFileName().toString())))
+                .sorted(Comparator.comparing(file -> file.getFileName().toString(), SEGMENT_ORDER))
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (segments.isEmpty()) {
+            return null;
+        }
+        
+        double duration = rendition.getSegmentDuration();
+        StringBuilder playlist = new StringBuilder("#EXTM3U\n")
+            .append("#EXT-X-VERSION:").append(hasInit ? 7 : 3).append('\n')
+            .append("#EXT-X-TARGETDURATION:").append((long) Math.ceil(duration)).append('\n')
+            .append("#EXT-X-MEDIA-SEQUENCE:0\n#EXT-X-PLAYLIST-TYPE:VOD\n#EXT-X-INDEPENDENT-SEGMENTS\n");
+        if (hasInit) {
+            playlist.append("#EXT-X-MAP:URI=\"").append(INIT_SEGMENT).append("\"\n");
+        }
+        
+        List<String> names = new ArrayList<>();
+        Map<String, Integer> files = new HashMap<>();
+        for (int i = 0; i < segments.size(); i++) {
+            String name = segments.get(i).getFileName().toString();
+            double segmentDuration = i < segments.size() - 1 ? duration : lastSegmentDuration(segments, duration);
+            playlist.append(String.format(Locale.ROOT, "#EXTINF:%.3f,\n", segmentDuration)).append(name).append('\n');
+            names.add(name);
+            files.put(name, i);
+        }
+        playlist.append("#EXT-X-ENDLIST\n");
+        if (hasInit) {
+            files.put(INIT_SEGMENT, -1);
+        }
+        return new Variant(directory, playlist(playlist.toString()), List.copyOf(names), Map.copyOf(files),
+            rendition.getBandwidth());
+    }
+    
+    /**
+     * The last segment is usually short; estimate its length from its size relative to a full one
+     */
+    private static double lastSegmentDuration(List<Path> segments, double duration) {
+        if (segments.size() < 2) {
+            // Nothing to compare with; a single-segment clip is advertised at the target duration
+            return duration;
+        }
+        try {
+            long last = Files.size(segments.get(segments.size() - 1));
+            long full = Files.size(segments.get(segments.size() - 2));
+            if (full <= 0) {
+                return duration;
+            }
+            return Math.max(0.001, Math.min(duration, duration * last / full));
+        } catch (IOException e) {
+            return duration;
+        }
+    }
+    
+    private void watch(Path directory, String mediaId) {
+        WatchKey key = watchedDirectories.compute(directory, (path, existing) -> {
+            if (existing != null && existing.isValid()) {
+                return existing;
+            }
+            try {
+                return path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            } catch (IOException e) {
+                log.warn("Could not watch {}, playlists will only refresh after {}", path, cacheTtl, e);
+                return null;
+            }
+        });
+        if (key != null) {
+            watchers.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(mediaId);
+        }
+    }
+    
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            key.pollEvents();
+            Set<String> mediaIds = watchers.getOrDefault(key, Set.of());
+            mediaIds.forEach(packages::invalidate);
+            if (!key.reset()) {
+                // Directory is gone; the next build registers it again if it comes back
+                watchers.remove(key);
+                watchedDirectories.values().remove(key);
+            }
+        }
+    }
+    
+    private static Playlist playlist(String content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return new Playlist(content, "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private static String extension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? "" : fileName.substring(dot + 1);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.netflix_server.service;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * On-demand Java Flight Recorder recordings, driven from the admin API.
+ *
+ * At most one recording runs at a time. It uses one of the JDK's built-in
+ * settings ("default" for continuous use, "profile" for more detail) plus the
+ * application's netflix.* events, and is written to the configured directory
+ * under a server-chosen file name.
+ */
+@Service
+public class JfrRecordingService {
+    
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    
+    @Value("${jfr.dump-directory:${java.io.tmpdir}}")
+    private String dumpDirectory;
+    
+    // Safety net so a forgotten recording does not grow forever
+    @Value("${jfr.max-age:PT30M}")
+    private Duration maxAge;
+    
+    private Recording recording;
+    
+    /**
+     * Start a recording
+     * @param settings "default" or "profile"
+     * @throws IllegalArgumentException if the settings name is unknown
+     * @throws IllegalStateException if a recording is already running
+     */
+    public synchronized Map<String, Object> start(String settings) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new IllegalStateException("A recording is already running");
+        }
+        if (!"default".equals(settings) && !"profile".equals(settings)) {
+            throw new IllegalArgumentException("Unknown JFR settings '" + settings + "', use default or profile");
+        }
+        
+        try {
+            recording = new Recording(Configuration.getConfiguration(settings));
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Could not load JFR settings " + settings, e);
+        }
+        recording.setName("netflix-server");
+        recording.setMaxAge(maxAge);
+        recording.setToDisk(true);
+        recording.enable("netflix.RepositoryCall");
+        recording.enable("netflix.AuthFilter");
+        recording.enable("netflix.PasswordCheck");
+        recording.start();
+        return describe(null);
+    }
+    
+    /**
+     * Write what has been recorded so far to disk, leaving the recording running
+     * @return details including the dump file path
+     */
+    public synchronized Map<String, Object> dump() {
+        requireRunning();
+        return describe(writeDump());
+    }
+    
+    /**
+     * Stop the recording and write it to disk
+     * @return details including the dump file path
+     */
+    public synchronized Map<String, Object> stop() {
+        requireRunning();
+        recording.stop();
+        Path file = writeDump();
+        Map<String, Object> details = describe(file);
+        recording.close();
+        recording = null;
+        return details;
+    }
+    
+    /**
+     * Details of the current recording, or just "running: false"
+     */
+    public synchronized Map<String, Object> status() {
+        if (recording == null) {
+            return Map.of("running", false);
+        }
+        return describe(null);
+    }
+    
+    private void requireRunning() {
+        if (recording == null) {
+            throw new IllegalStateException("No recording is running");
+        }
+    }
+    
+    private Path writeDump() {
+        try {
+            Path directory = Paths.get(dumpDirectory);
+            Files.createDirectories(directory);
+            Path file = directory.resolve("netflix-server-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr");
+            recording.dump(file);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write JFR recording", e);
+        }
+    }
+    
+    private Map<String, Object> describe(Path file) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("running", recording.getState() == RecordingState.RUNNING);
+        details.put("state", recording.getState().name());
+        details.put("startTime", recording.getStartTime());
+        if (file != null) {
+            details.put("file", file.toAbsolutePath().toString());
+        }
+        return details;
+    }
+}
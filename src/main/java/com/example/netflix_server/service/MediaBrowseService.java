@@ -0,0 +1,147 @@
+package com.example.netflix_server.service;
+
+import com.example.netflix_server.dto.BrowseResponse;
+import com.example.netflix_server.dto.MediaResponse;
+import com.example.netflix_server.model.Media;
+import com.example.netflix_server.util.GenreNormalizer;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Multi-filter browse over the catalog.
+ *
+ * Results, the total count and the genre / media type facet counts come back from a
+ * single aggregation, so one browse page costs one round trip. The match and sort
+ * run ahead of the $facet so the sort can come from a mediaType_<field>_id index;
+ * without a media type the match names both types, which lets the planner merge the
+ * two index ranges in order. That only covers the sort: the $facet still reads every
+ * matching document for the total and the facet counts, so a page costs as much as
+ * the whole match. Genre, year and price filters can make the planner choose another
+ * index (or none), and the sort then runs in memory, spilling to disk if it must.
+ */
+@Service
+public class MediaBrowseService {
+    
+    // Sort keys offered to clients, each backed by an index on Media
+    public static final Set<String> SORT_FIELDS = Set.of("year", "rentPrice", "title", "popularity");
+    
+    // Every item has one of these (validated on write); the default media type filter
+    private static final List<String> MEDIA_TYPES = List.of("movie", "tvshow");
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private MediaService mediaService;
+    
+    /**
+     * Browse the catalog
+     * @param mediaType "movie", "tvshow" or null for both
+     * @param genres genres the items must all have (null or empty for any)
+     * @param sortField one of SORT_FIELDS
+     * @param offset number of results to skip
+     * @param limit maximum number of results
+     */
+    public BrowseResponse browse(String mediaType, List<String> genres,
+                                 Integer yearFrom, Integer yearTo,
+                                 Double minPrice, Double maxPrice,
+                                 String sortField, Sort.Direction direction,
+                                 int offset, int limit) {
+        
+        Criteria criteria = new Criteria();
+        if (mediaType != null) {
+            criteria = criteria.and("mediaType").is(mediaType);
+        } else {
+            // Same documents, but the leading index field stays constrained
+            criteria = criteria.and("mediaType").in(MEDIA_TYPES);
+        }
+        if (genres != null && !genres.isEmpty()) {
+            criteria = criteria.and("genres").all(genres.stream()
+                .map(GenreNormalizer::normalizeOne)
+                .collect(Collectors.toList()));
+        }
+        if (yearFrom != null || yearTo != null) {
+            Criteria year = criteria.and("year");
+            if (yearFrom != null) {
+                year.gte(yearFrom);
+            }
+            if (yearTo != null) {
+                year.lte(yearTo);
+            }
+        }
+        if (minPrice != null || maxPrice != null) {
+            Criteria price = criteria.and("rentPrice");
+            if (minPrice != null) {
+                price.gte(minPrice);
+            }
+            if (maxPrice != null) {
+                price.lte(maxPrice);
+            }
+        }
+        
+        // Sort before $facet: stages inside a facet cannot use indexes, a leading match + sort can
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.match(criteria),
+            // _id as a tie-breaker keeps pages stable
+            Aggregation.sort(Sort.by(direction, sortField).and(Sort.by(direction, "id"))),
+            Aggregation.facet(
+                    Aggregation.skip((long) offset),
+                    Aggregation.limit(limit)
+                ).as("results")
+                .and(Aggregation.count().as("count")).as("total")
+                .and(Aggregation.unwind("genres"), Aggregation.sortByCount("genres")).as("genres")
+                .and(Aggregation.sortByCount("mediaType")).as("mediaTypes")
+        ).withOptions(AggregationOptions.builder()
+            // Filters the sort index does not serve sort in memory; spill instead of failing
+            .allowDiskUse(true)
+            .build());
+        
+        AggregationResults<Document> aggregationResults =
+            mongoTemplate.aggregate(aggregation, Media.class, Document.class);
+        Document facets = aggregationResults.getUniqueMappedResult();
+        
+        List<MediaResponse> results = new ArrayList<>();
+        for (Document document : facets.getList("results", Document.class)) {
+            Media media = mongoTemplate.getConverter().read(Media.class, document);
+            results.add(mediaService.convertToResponse(media));
+        }
+        List<Document> totals = facets.getList("total", Document.class);
+        long total = totals.isEmpty() ? 0 : ((Number) totals.get(0).get("count")).longValue();
+        
+        return new BrowseResponse(
+            results,
+            total,
+            toCounts(facets.getList("genres", Document.class)),
+            toCounts(facets.getList("mediaTypes", Document.class))
+        );
+    }
+    
+    /**
+     * Turn $sortByCount output ({_id, count}) into an ordered map
+     */
+    private Map<String, Long> toCounts(List<Document> buckets) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Document bucket : buckets) {
+            Object key = bucket.get("_id");
+            if (key != null) {
+                counts.put(key.toString(), ((Number) bucket.get("count")).longValue());
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.netflix_server.service;
+
+import com.example.netflix_server.dto.BulkImportResponse;
+import com.example.netflix_server.dto.MediaRequest;
+import com.example.netflix_server.model.Media;
+import com.example.netflix_server.util.BulkRecordReader;
+
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming bulk import of media records.
+ *
+ * Accepts a JSON array or newline-delimited JSON. Records are parsed and validated
+ * one at a time and written in fixed-size unordered bulk inserts, so memory use
+ * depends on the batch size and not on the payload size.
+ */
+@Service
+public class MediaImportService {
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private MediaService mediaService;
+    
+    @Autowired
+    private BulkRecordReader bulkRecordReader;
+    
+    @Value("${media.import.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${media.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+    
+    /**
+     * Import every record of a JSON array or NDJSON stream
+     * @param body the raw request body, read incrementally
+     * @return counts and per-record failures; if the payload is not well-formed JSON,
+     *         the report of what was imported before the error, with parseError set
+     */
+    public BulkImportResponse importMedia(InputStream body) throws IOException {
+        return bulkRecordReader.read(body, MediaRequest.class, batchSize, maxReportedErrors, this::insertBatch);
+    }
+    
+    /**
+     * Write a batch with one unordered bulk insert and feed the caches once
+     */
+    private Map<Integer, String> insertBatch(List<MediaRequest> batch) {
+        List<Media> mediaItems = new ArrayList<>(batch.size());
+        for (MediaRequest request : batch) {
+            Media media = mediaService.toEntity(request);
+            // Assign ids up front so inserted records can be indexed without reading them back
+            media.setId(new ObjectId().toHexString());
+            mediaItems.add(media);
+        }
+        
+        Map<Integer, String> failures = new LinkedHashMap<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Media.class)
+                .insert(mediaItems)
+                .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                failures.put(error.getIndex(), error.getMessage());
+            }
+        }
+        
+        List<Media> inserted = new ArrayList<>(mediaItems.size() - failures.size());
+        for (int i = 0; i < mediaItems.size(); i++) {
+            if (!failures.containsKey(i)) {
+                inserted.add(mediaItems.get(i));
+            }
+        }
+        mediaService.onMediaImported(inserted);
+        return failures;
+    }
+}
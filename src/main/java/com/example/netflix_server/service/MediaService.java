@@ -1,27 +1,178 @@
 package com.example.netflix_server.service;
 
+import com.example.netflix_server.cache.FeaturedRailSnapshot;
+import com.example.netflix_server.cache.MediaCatalogCache;
+import com.example.netflix_server.dto.BulkPriceUpdateRequest;
+import com.example.netflix_server.dto.BulkPriceUpdateResponse;
+import com.example.netflix_server.dto.MediaPage;
+import com.example.netflix_server.dto.MediaPatchRequest;
 import com.example.netflix_server.dto.MediaRequest;
 import com.example.netflix_server.dto.MediaResponse;
+import com.example.netflix_server.dto.MediaSuggestion;
 import com.example.netflix_server.model.Media;
 import com.example.netflix_server.repository.MediaRepository;
+import com.example.netflix_server.search.MediaSearchIndex;
+import com.example.netflix_server.search.TitleSuggester;
+import com.example.netflix_server.util.GenreNormalizer;
+import com.example.netflix_server.jfr.RepositoryCallEvent;
+import com.example.netflix_server.exception.RevisionConflictException;
 import com.example.netflix_server.exception.UserNotFoundException;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "media.service", description = "Media catalog operations")
 public class MediaService {
     
+    private static final Logger logger = LoggerFactory.getLogger(MediaService.class);
+    
     @Autowired
     private MediaRepository mediaRepository;
     
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+    
+    @Value("${media.cache.max-entries:10000}")
+    private long cacheMaxEntries;
+    
+    @Value("${media.cache.ttl:PT10M}")
+    private Duration cacheTtl;
+    
+    @Value("${media.cache.refresh-after:PT1M}")
+    private Duration cacheRefreshAfter;
+    
+    @Value("${media.suggest.max-results:10}")
+    private int suggestMaxResults;
+    
+    private MediaCatalogCache catalogCache;
+    
+    private final MediaSearchIndex searchIndex = new MediaSearchIndex();
+    
+    // Replaced as a whole when the catalog is reloaded
+    private volatile TitleSuggester titleSuggester;
+    
+    // mediaType -> pre-encoded featured rail
+    private final Map<String, FeaturedRailSnapshot> featuredRails = new ConcurrentHashMap<>();
+    
+    // Title search falls back to Mongo until the index has been built
+    private volatile boolean searchIndexReady = false;
+    
+    // Writers update the index and trie under the read lock, a rebuild holds the write lock
+    // from its snapshot to the swap, so no write can land in the old copies and be lost
+    private final ReentrantReadWriteLock indexRebuildLock = new ReentrantReadWriteLock();
+    
+    @PostConstruct
+    void initCatalogCache() {
+        catalogCache = new MediaCatalogCache(
+            this::loadMediaById,
+            this::loadMediaList,
+            cacheMaxEntries,
+            cacheTtl,
+            cacheRefreshAfter
+        );
+        catalogCache.bindTo(meterRegistry);
+        titleSuggester = new TitleSuggester(suggestMaxResults);
+        catalogVersionService.onExternalChange(this::reloadCatalog);
+    }
+    
+    /**
+     * Build the title search index and the typeahead trie once the application has started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        long start = System.nanoTime();
+        indexRebuildLock.writeLock().lock();
+        try {
+            List<MediaResponse> allMedia;
+            try (Stream<Media> stream = mediaRepository.streamAllBy()) {
+                allMedia = stream.map(this::convertToResponse).toList();
+            }
+            searchIndex.rebuild(allMedia);
+            TitleSuggester suggester = new TitleSuggester(suggestMaxResults);
+            allMedia.forEach(media -> suggester.upsert(toSuggestion(media)));
+            titleSuggester = suggester;
+            searchIndexReady = true;
+        } finally {
+            indexRebuildLock.writeLock().unlock();
+        }
+        logger.info("Indexed {} media titles in {} ms",
+                searchIndex.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    /**
+     * Drop every cached response and rebuild the search index and typeahead trie,
+     * for catalog writes that did not go through this service
+     */
+    public void reloadCatalog() {
+        catalogCache.invalidateAll();
+        buildSearchIndex();
+    }
+    
     /**
      * Create new media (movie/tvshow)
      */
     public MediaResponse createMedia(MediaRequest mediaRequest) {
+        Media media = toEntity(mediaRequest);
+        
+        Media savedMedia = traced("save", "insert", () -> mediaRepository.save(media));
+        MediaResponse response = convertToResponse(savedMedia);
+        
+        catalogCache.put(response);
+        catalogCache.invalidateLists(savedMedia.getMediaType(), savedMedia.getFeatured());
+        updateIndexes(() -> {
+            searchIndex.upsert(response);
+            titleSuggester.upsert(toSuggestion(response));
+        });
+        catalogVersionService.bump();
+        return response;
+    }
+    
+    /**
+     * Build a new Media entity from a request
+     */
+    public Media toEntity(MediaRequest mediaRequest) {
         Media media = new Media();
         media.setTitle(mediaRequest.getTitle());
         media.setImage(mediaRequest.getImage());
@@ -31,79 +182,155 @@ public class MediaService {
         media.setPurchasePrice(mediaRequest.getPurchasePrice());
         media.setYear(mediaRequest.getYear());
         media.setGenre(mediaRequest.getGenre());
+        media.setGenres(GenreNormalizer.normalize(mediaRequest.getGenre()));
         media.setDescription(mediaRequest.getDescription());
         media.setMediaType(mediaRequest.getMediaType());
         media.setFeatured(mediaRequest.getFeatured() != null ? mediaRequest.getFeatured() : false);
+        media.setPopularity(mediaRequest.getPopularity());
+        media.setVideoFile(mediaRequest.getVideoFile());
+        media.setHlsDirectory(mediaRequest.getHlsDirectory());
+        media.setRenditions(mediaRequest.getRenditions());
+        return media;
+    }
+    
+    /**
+     * Feed a batch of bulk-inserted media to the cache, search index and catalog version
+     * Runs once per batch, so a large import does not invalidate per record.
+     */
+    public void onMediaImported(List<Media> inserted) {
+        if (inserted.isEmpty()) {
+            return;
+        }
         
-        Media savedMedia = mediaRepository.save(media);
-        return convertToResponse(savedMedia);
+        List<MediaResponse> responses = inserted.stream()
+                .map(this::convertToResponse)
+                .collect(Collectors.toList());
+        
+        invalidateListsOf(inserted);
+        updateIndexes(() -> {
+            searchIndex.upsertAll(responses);
+            responses.forEach(response -> titleSuggester.upsert(toSuggestion(response)));
+        });
+        catalogVersionService.bump();
     }
     
     /**
      * Get all movies
      */
     public List<MediaResponse> getAllMovies() {
-        List<Media> movies = mediaRepository.findByMediaType("movie");
-        return movies.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return catalogCache.getList("movie", false);
     }
     
     /**
      * Get all TV shows
      */
     public List<MediaResponse> getAllTvShows() {
-        List<Media> tvShows = mediaRepository.findByMediaType("tvshow");
-        return tvShows.stream()
+        return catalogCache.getList("tvshow", false);
+    }
+    
+    /**
+     * Get one page of a media type in _id order
+     * @param mediaType "movie" or "tvshow"
+     * @param cursor opaque cursor from the previous page, or null for the first page
+     * @param limit maximum number of items to return
+     * @param fields fields to load from Mongo, or null for the whole document
+     * @return the page and the cursor for the next one (null on the last page)
+     */
+    public MediaPage getMediaPage(String mediaType, String cursor, int limit, Set<String> fields) {
+        String afterId = cursor != null ? decodeCursor(cursor) : null;
+        
+        // Fetch one extra document to find out whether another page follows
+        Limit fetchLimit = Limit.of(limit + 1);
+        List<Media> mediaList;
+        if (fields != null) {
+            mediaList = findPageProjected(mediaType, afterId, fetchLimit, fields);
+        } else if (afterId == null) {
+            mediaList = traced("findByMediaType", "find {mediaType} sort {_id} limit",
+                    () -> mediaRepository.findByMediaTypeOrderByIdAsc(mediaType, fetchLimit));
+        } else {
+            mediaList = traced("findByMediaTypeAfterId", "find {mediaType, _id: {$gt}} sort {_id} limit",
+                    () -> mediaRepository.findByMediaTypeAndIdGreaterThanOrderByIdAsc(mediaType, afterId, fetchLimit));
+        }
+        
+        boolean hasMore = mediaList.size() > limit;
+        List<MediaResponse> items = mediaList.stream()
+                .limit(limit)
                 .map(this::convertToResponse)
                 .collect(Collectors.toList());
+        String nextCursor = hasMore ? encodeCursor(items.get(items.size() - 1).getId()) : null;
+        return new MediaPage(items, nextCursor);
     }
     
     /**
-     * Search media by title
+     * Search media by title (served from the in-memory trigram index)
      */
     public List<MediaResponse> searchMediaByTitle(String title) {
-        List<Media> mediaList = mediaRepository.findByTitleContainingIgnoreCase(title);
+        if (searchIndexReady) {
+            return searchIndex.search(title);
+        }
+        
+        List<Media> mediaList = traced("findByTitle", "find {title: {$regex, i}}",
+                () -> mediaRepository.findByTitleContainingIgnoreCase(title));
         return mediaList.stream()
                 .map(this::convertToResponse)
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Typeahead suggestions by title prefix, most popular first (served from memory)
+     */
+    public List<MediaSuggestion> suggestTitles(String prefix, int limit) {
+        return titleSuggester.suggest(prefix, limit);
+    }
+    
     /**
      * Get featured movies
      */
     public List<MediaResponse> getFeaturedMovies() {
-        List<Media> featuredMovies = mediaRepository.findByMediaTypeAndFeatured("movie", true);
-        return featuredMovies.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return catalogCache.getList("movie", true);
     }
     
     /**
      * Get featured TV shows
      */
     public List<MediaResponse> getFeaturedTvShows() {
-        List<Media> featuredTvShows = mediaRepository.findByMediaTypeAndFeatured("tvshow", true);
-        return featuredTvShows.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return catalogCache.getList("tvshow", true);
+    }
+    
+    /**
+     * Get the featured rail of a media type as pre-encoded JSON
+     * The snapshot is only re-encoded when the content of the featured listing has changed.
+     * @param message the ApiResponse message embedded in the encoded body
+     */
+    public FeaturedRailSnapshot getFeaturedRail(String mediaType, String message) {
+        List<MediaResponse> featured = catalogCache.getList(mediaType, true);
+        FeaturedRailSnapshot snapshot = featuredRails.get(mediaType);
+        if (snapshot == null || !snapshot.isBuiltFrom(featured)) {
+            snapshot = FeaturedRailSnapshot.of(featured, message, objectMapper);
+            featuredRails.put(mediaType, snapshot);
+        }
+        return snapshot;
     }
     
     /**
      * Get media by ID
      */
     public MediaResponse getMediaById(String mediaId) {
-        Media media = mediaRepository.findById(mediaId)
-            .orElseThrow(() -> new UserNotFoundException("Media with ID " + mediaId + " not found"));
-        return convertToResponse(media);
+        MediaResponse media = catalogCache.get(mediaId);
+        if (media == null) {
+            throw new UserNotFoundException("Media with ID " + mediaId + " not found");
+        }
+        return media;
     }
     
     /**
      * Update media
      */
     public MediaResponse updateMedia(String mediaId, MediaRequest mediaRequest) {
-        Media existingMedia = mediaRepository.findById(mediaId)
+        Media existingMedia = traced("findById", "find {_id}", () -> mediaRepository.findById(mediaId))
             .orElseThrow(() -> new UserNotFoundException("Media with ID " + mediaId + " not found"));
+        String previousType = existingMedia.getMediaType();
+        Boolean previouslyFeatured = existingMedia.getFeatured();
         
         // Update fields
         existingMedia.setTitle(mediaRequest.getTitle());
@@ -114,27 +341,253 @@ public class MediaService {
         existingMedia.setPurchasePrice(mediaRequest.getPurchasePrice());
         existingMedia.setYear(mediaRequest.getYear());
         existingMedia.setGenre(mediaRequest.getGenre());
+        existingMedia.setGenres(GenreNormalizer.normalize(mediaRequest.getGenre()));
         existingMedia.setDescription(mediaRequest.getDescription());
         existingMedia.setMediaType(mediaRequest.getMediaType());
         existingMedia.setFeatured(mediaRequest.getFeatured() != null ? mediaRequest.getFeatured() : false);
+        existingMedia.setPopularity(mediaRequest.getPopularity());
+        existingMedia.setVideoFile(mediaRequest.getVideoFile());
+        existingMedia.setHlsDirectory(mediaRequest.getHlsDirectory());
+        existingMedia.setRenditions(mediaRequest.getRenditions());
+        existingMedia.setRevision(existingMedia.getRevision() != null ? existingMedia.getRevision() + 1 : 1L);
+        
+        Media updatedMedia = traced("save", "replace {_id}", () -> mediaRepository.save(existingMedia));
+        MediaResponse response = convertToResponse(updatedMedia);
+        
+        // The item may have moved between listings, so drop both the old and the new ones
+        catalogCache.put(response);
+        catalogCache.invalidateLists(previousType, previouslyFeatured);
+        catalogCache.invalidateLists(updatedMedia.getMediaType(), updatedMedia.getFeatured());
+        updateIndexes(() -> {
+            searchIndex.upsert(response);
+            titleSuggester.upsert(toSuggestion(response));
+        });
+        catalogVersionService.bump();
+        return response;
+    }
+    
+    /**
+     * Partially update media with a single atomic findAndModify
+     * Only the supplied fields are $set; the post-image comes back in the same round trip.
+     * @throws RevisionConflictException if expectedRevision is given and does not match
+     */
+    public MediaResponse patchMedia(String mediaId, MediaPatchRequest patch) {
+        Update update = new Update().inc("revision", 1);
+        setIfPresent(update, "title", patch.getTitle());
+        setIfPresent(update, "image", patch.getImage());
+        setIfPresent(update, "largePoster", patch.getLargePoster());
+        setIfPresent(update, "synopsis", patch.getSynopsis());
+        setIfPresent(update, "rentPrice", patch.getRentPrice());
+        setIfPresent(update, "purchasePrice", patch.getPurchasePrice());
+        setIfPresent(update, "year", patch.getYear());
+        setIfPresent(update, "genre", patch.getGenre());
+        if (patch.getGenre() != null) {
+            update.set("genres", GenreNormalizer.normalize(patch.getGenre()));
+        }
+        setIfPresent(update, "description", patch.getDescription());
+        setIfPresent(update, "mediaType", patch.getMediaType());
+        setIfPresent(update, "featured", patch.getFeatured());
+        setIfPresent(update, "popularity", patch.getPopularity());
+        setIfPresent(update, "videoFile", patch.getVideoFile());
+        setIfPresent(update, "hlsDirectory", patch.getHlsDirectory());
+        setIfPresent(update, "renditions", patch.getRenditions());
+        
+        Criteria criteria = Criteria.where("id").is(mediaId);
+        if (patch.getExpectedRevision() != null) {
+            criteria = patch.getExpectedRevision() == 0
+                // documents written before revisions existed have no revision field
+                ? criteria.and("revision").in(0L, null)
+                : criteria.and("revision").is(patch.getExpectedRevision());
+        }
+        
+        Query patchQuery = Query.query(criteria);
+        Media patchedMedia = traced("patch", "findAndModify {_id, revision?} $set $inc",
+                () -> mongoTemplate.findAndModify(
+                        patchQuery,
+                        update,
+                        FindAndModifyOptions.options().returnNew(true),
+                        Media.class));
+        if (patchedMedia == null) {
+            // Only the failure path pays for the extra lookup that tells 404 and 409 apart
+            if (patch.getExpectedRevision() != null
+                    && traced("existsById", "find {_id} limit 1", () -> mediaRepository.existsById(mediaId))) {
+                throw new RevisionConflictException("Media with ID " + mediaId
+                        + " has been modified since revision " + patch.getExpectedRevision());
+            }
+            throw new UserNotFoundException("Media with ID " + mediaId + " not found");
+        }
+        
+        MediaResponse response = convertToResponse(patchedMedia);
+        catalogCache.put(response);
+        if (patch.getMediaType() != null || patch.getFeatured() != null) {
+            // The pre-image is unknown, so any listing may have lost the item
+            catalogCache.invalidateAllLists();
+        } else {
+            catalogCache.invalidateLists(patchedMedia.getMediaType(), patchedMedia.getFeatured());
+        }
+        updateIndexes(() -> {
+            searchIndex.upsert(response);
+            titleSuggester.upsert(toSuggestion(response));
+        });
+        catalogVersionService.bump();
+        return response;
+    }
+    
+    /**
+     * Change the prices of many media items with one unordered bulkWrite
+     */
+    public BulkPriceUpdateResponse updatePrices(BulkPriceUpdateRequest request) {
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Media.class);
+        List<String> mediaIds = new ArrayList<>();
+        for (BulkPriceUpdateRequest.PriceUpdate priceUpdate : request.getUpdates()) {
+            Update update = new Update().inc("revision", 1);
+            setIfPresent(update, "rentPrice", priceUpdate.getRentPrice());
+            setIfPresent(update, "purchasePrice", priceUpdate.getPurchasePrice());
+            bulkOps.updateOne(Query.query(Criteria.where("id").is(priceUpdate.getId())), update);
+            mediaIds.add(priceUpdate.getId());
+        }
+        BulkWriteResult result = traced("updatePrices", "bulkWrite updateOne {_id} $set $inc", bulkOps::execute);
+        
+        // Refresh the in-memory copies of the changed items with one read
+        List<Media> updatedMedia = traced("findAllById", "find {_id: {$in}}", () -> mediaRepository.findAllById(mediaIds));
+        List<MediaResponse> responses = updatedMedia.stream()
+                .map(this::convertToResponse)
+                .collect(Collectors.toList());
+        responses.forEach(catalogCache::put);
+        invalidateListsOf(updatedMedia);
+        updateIndexes(() -> searchIndex.upsertAll(responses));
+        catalogVersionService.bump();
         
-        Media updatedMedia = mediaRepository.save(existingMedia);
-        return convertToResponse(updatedMedia);
+        return new BulkPriceUpdateResponse(
+                request.getUpdates().size(),
+                result.getMatchedCount(),
+                result.getModifiedCount());
     }
     
     /**
      * Delete media
      */
     public void deleteMedia(String mediaId) {
-        Media media = mediaRepository.findById(mediaId)
+        Media media = traced("findById", "find {_id}", () -> mediaRepository.findById(mediaId))
             .orElseThrow(() -> new UserNotFoundException("Media with ID " + mediaId + " not found"));
-        mediaRepository.delete(media);
+        traced("delete", "delete {_id}", () -> {
+            mediaRepository.delete(media);
+            return null;
+        });
+        
+        catalogCache.invalidate(mediaId);
+        catalogCache.invalidateLists(media.getMediaType(), media.getFeatured());
+        updateIndexes(() -> {
+            searchIndex.remove(mediaId);
+            titleSuggester.remove(mediaId);
+        });
+        catalogVersionService.bump();
+    }
+    
+    /**
+     * Apply a write to the search index and typeahead trie; concurrent with other
+     * writes, but waits for a rebuild in progress so the rebuilt copies get it
+     */
+    private void updateIndexes(Runnable update) {
+        indexRebuildLock.readLock().lock();
+        try {
+            update.run();
+        } finally {
+            indexRebuildLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Load a single media item for the catalog cache (null when missing)
+     */
+    private MediaResponse loadMediaById(String mediaId) {
+        return traced("findById", "find {_id}", () -> mediaRepository.findById(mediaId))
+                .map(this::convertToResponse)
+                .orElse(null);
+    }
+    
+    /**
+     * Load a listing for the catalog cache
+     */
+    private List<MediaResponse> loadMediaList(MediaCatalogCache.ListKey key) {
+        List<Media> mediaList = key.featuredOnly()
+                ? traced("findFeatured", "find {mediaType, featured}",
+                        () -> mediaRepository.findByMediaTypeAndFeatured(key.mediaType(), true))
+                : traced("findByMediaType", "find {mediaType}",
+                        () -> mediaRepository.findByMediaType(key.mediaType()));
+        return mediaList.stream()
+                .map(this::convertToResponse)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Invalidate each listing touched by a batch of media exactly once
+     */
+    private void invalidateListsOf(List<Media> mediaList) {
+        Map<String, Boolean> touchedLists = new HashMap<>();
+        for (Media media : mediaList) {
+            touchedLists.merge(media.getMediaType(), Boolean.TRUE.equals(media.getFeatured()), Boolean::logicalOr);
+        }
+        touchedLists.forEach(catalogCache::invalidateLists);
+    }
+    
+    /**
+     * Run a media collection call inside a RepositoryCallEvent (free when JFR is not recording)
+     */
+    private static <T> T traced(String operation, String queryShape, Supplier<T> call) {
+        return RepositoryCallEvent.record("media", operation, queryShape, call);
+    }
+    
+    private static void setIfPresent(Update update, String field, Object value) {
+        if (value != null) {
+            update.set(field, value);
+        }
+    }
+    
+    /**
+     * Keyset page query that only loads the selected fields from Mongo
+     */
+    private List<Media> findPageProjected(String mediaType, String afterId, Limit limit, Set<String> fields) {
+        Criteria criteria = Criteria.where("mediaType").is(mediaType);
+        if (afterId != null) {
+            criteria = criteria.and("id").gt(afterId);
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by("id"))
+                .limit(limit);
+        query.fields().include(fields.toArray(String[]::new));
+        return traced("findPageProjected", "find {mediaType, _id: {$gt}?} sort {_id} limit project",
+                () -> mongoTemplate.find(query, Media.class));
+    }
+    
+    /**
+     * Encode the last _id of a page as an opaque cursor
+     */
+    private String encodeCursor(String mediaId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(mediaId.getBytes(StandardCharsets.US_ASCII));
+    }
+    
+    /**
+     * Decode a cursor back to the _id it was built from
+     * @throws IllegalArgumentException if the cursor was not produced by encodeCursor
+     */
+    private String decodeCursor(String cursor) {
+        try {
+            String mediaId = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (mediaId.matches("^[0-9a-fA-F]{24}$")) {
+                return mediaId;
+            }
+        } catch (IllegalArgumentException e) {
+            // fall through to the error below
+        }
+        throw new IllegalArgumentException("Invalid cursor");
     }
     
     /**
      * Convert Media entity to MediaResponse DTO
      */
-    private MediaResponse convertToResponse(Media media) {
+    public MediaResponse convertToResponse(Media media) {
         return new MediaResponse(
             media.getId(),
             media.getTitle(),
@@ -145,9 +598,25 @@ public class MediaService {
             media.getPurchasePrice(),
             media.getYear(),
             media.getGenre(),
+            media.getGenres(),
             media.getDescription(),
             media.getMediaType(),
-            media.getFeatured()
+            media.getFeatured(),
+            media.getPopularity(),
+            media.getRevision(),
+            media.getRenditions()
+        );
+    }
+    
+    /**
+     * Convert a MediaResponse to the compact typeahead entry
+     */
+    private MediaSuggestion toSuggestion(MediaResponse media) {
+        return new MediaSuggestion(
+            media.getId(),
+            media.getTitle(),
+            media.getMediaType(),
+            media.getPopularity() != null ? media.getPopularity() : 0
         );
     }
 }
@@ -0,0 +1,225 @@
+package com.example.netflix_server.service;
+
+import com.example.netflix_server.exception.ServiceBusyException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs BCrypt on a dedicated, bounded pool.
+ *
+ * The calling request thread still waits for its hash (up to the timeout), so this
+ * does not free Tomcat workers. What it bounds is CPU: at most one hash per core
+ * runs at once, and when the pool and its short queue are full the caller gets a
+ * ServiceBusyException (503) immediately. A login burst then fails fast instead of
+ * piling up waiting workers and starving cheap catalog reads.
+ */
+@Service
+public class PasswordHashingService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+    
+    // $2a$10$... -> cost factor 10
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+    
+    @Autowired
+    private BCryptPasswordEncoder passwordEncoder;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${security.password.threads:0}")
+    private int threads;
+    
+    @Value("${security.password.queue-capacity:64}")
+    private int queueCapacity;
+    
+    @Value("${security.password.timeout:PT5S}")
+    private Duration timeout;
+    
+    @Value("${security.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+    
+    private ExecutorService executor;
+    
+    // Separate pool for bulk imports, so a migration never fills the login queue
+    private ExecutorService bulkExecutor;
+    
+    private Timer queueWaitTimer;
+    private Timer encodeTimer;
+    private Timer verifyTimer;
+    
+    @PostConstruct
+    void initPool() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+            poolSize, poolSize,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+        // Queue depth, active threads and completed tasks are published as executor.* meters
+        executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "password.hashing");
+        
+        AtomicInteger bulkThreadNumber = new AtomicInteger();
+        bulkExecutor = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-bulk-" + bulkThreadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        
+        queueWaitTimer = Timer.builder("password.hashing.queue.wait")
+            .description("Time a hashing task waited for a pool thread")
+            .register(meterRegistry);
+        encodeTimer = Timer.builder("password.hashing.duration")
+            .tag("operation", "encode")
+            .register(meterRegistry);
+        verifyTimer = Timer.builder("password.hashing.duration")
+            .tag("operation", "verify")
+            .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    void shutdownPool() {
+        executor.shutdown();
+        bulkExecutor.shutdown();
+    }
+    
+    /**
+     * Hash a password on the hashing pool
+     * @throws ServiceBusyException if the pool is saturated
+     */
+    public String encode(String rawPassword) {
+        return run(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+    }
+    
+    /**
+     * Check a password against a stored hash on the hashing pool
+     * @throws ServiceBusyException if the pool is saturated
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> verifyTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+    
+    /**
+     * Hash a batch of passwords in parallel across all cores, for bulk imports
+     * Runs on a low-priority pool separate from login and registration traffic.
+     * @return hashes in the same order as the input
+     */
+    public List<String> encodeAll(List<String> rawPasswords) {
+        int parallelism = Math.max(1, Math.min(rawPasswords.size(), Runtime.getRuntime().availableProcessors()));
+        int chunkSize = (rawPasswords.size() + parallelism - 1) / parallelism;
+        
+        List<Future<List<String>>> chunks = new ArrayList<>(parallelism);
+        for (int from = 0; from < rawPasswords.size(); from += chunkSize) {
+            List<String> chunk = rawPasswords.subList(from, Math.min(from + chunkSize, rawPasswords.size()));
+            chunks.add(bulkExecutor.submit(() -> {
+                List<String> hashes = new ArrayList<>(chunk.size());
+                for (String rawPassword : chunk) {
+                    hashes.add(encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+                }
+                return hashes;
+            }));
+        }
+        
+        List<String> hashes = new ArrayList<>(rawPasswords.size());
+        try {
+            for (Future<List<String>> chunk : chunks) {
+                hashes.addAll(chunk.get());
+            }
+        } catch (InterruptedException e) {
+            chunks.forEach(chunk -> chunk.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing passwords", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+        return hashes;
+    }
+    
+    /**
+     * True if a stored hash was made with a different cost factor than the configured one
+     */
+    public boolean needsRehash(String encodedPassword) {
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return !matcher.find() || Integer.parseInt(matcher.group(1)) != bcryptStrength;
+    }
+    
+    /**
+     * Hash a password in the background and hand the result to a callback
+     * Best effort: skipped if the pool is saturated, so it never competes with logins.
+     */
+    public void encodeInBackground(String rawPassword, Consumer<String> onEncoded) {
+        try {
+            executor.execute(() -> onEncoded.accept(encodeTimer.record(() -> passwordEncoder.encode(rawPassword))));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Skipping background rehash, hashing pool is saturated");
+        }
+    }
+    
+    /**
+     * Run a task on the pool and wait for it on the calling thread
+     * @throws ServiceBusyException if the pool is saturated or the task does not finish within the timeout
+     */
+    private <T> T run(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return task.call();
+            });
+        } catch (RejectedExecutionException e) {
+            throw new ServiceBusyException("Authentication service is busy, please retry shortly", 1);
+        }
+        
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceBusyException("Authentication service is busy, please retry shortly", 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
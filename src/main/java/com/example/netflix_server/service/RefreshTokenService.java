@@ -0,0 +1,118 @@
+package com.example.netflix_server.service;
+
+import com.example.netflix_server.exception.InvalidTokenException;
+import com.example.netflix_server.model.RefreshToken;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Opaque, single-use refresh tokens with rotation.
+ *
+ * Only a SHA-256 of each token is stored. Exchanging a token marks it used and
+ * issues a successor in the same family; presenting a used token again means it
+ * was copied, so the whole family is revoked and the user has to log in again.
+ */
+@Service
+public class RefreshTokenService {
+    
+    private static final SecureRandom RANDOM = new SecureRandom();
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Value("${jwt.refresh-expiration:P14D}")
+    private Duration refreshExpiration;
+    
+    /**
+     * Issue a new refresh token
+     * @param familyId family of the token being rotated, or null for a new login
+     * @return the raw token, to be handed to the client
+     */
+    public String issue(String userId, String email, String familyId) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        
+        Instant now = Instant.now();
+        RefreshToken refreshToken = new RefreshToken(
+            null,
+            digest(rawToken),
+            familyId != null ? familyId : UUID.randomUUID().toString(),
+            userId,
+            email,
+            false,
+            now,
+            now.plus(refreshExpiration)
+        );
+        mongoTemplate.insert(refreshToken);
+        return rawToken;
+    }
+    
+    /**
+     * Consume a refresh token so it cannot be exchanged again
+     * @return the consumed token, whose family the successor should join
+     * @throws InvalidTokenException if the token is unknown, expired or already used
+     */
+    public RefreshToken consume(String rawToken) {
+        String tokenHash = digest(rawToken);
+        RefreshToken consumed = mongoTemplate.findAndModify(
+            Query.query(Criteria.where("tokenHash").is(tokenHash).and("used").is(false)
+                .and("expiresAt").gt(Instant.now())),
+            Update.update("used", true),
+            FindAndModifyOptions.options().returnNew(true),
+            RefreshToken.class
+        );
+        if (consumed != null) {
+            return consumed;
+        }
+        
+        RefreshToken existing = mongoTemplate.findOne(
+            Query.query(Criteria.where("tokenHash").is(tokenHash)), RefreshToken.class);
+        if (existing != null && existing.isUsed()) {
+            revokeFamily(existing.getFamilyId());
+            throw new InvalidTokenException("Refresh token was already used, please log in again");
+        }
+        throw new InvalidTokenException("Invalid or expired refresh token");
+    }
+    
+    /**
+     * Revoke the whole family a refresh token belongs to (logout)
+     */
+    public void revoke(String rawToken) {
+        RefreshToken existing = mongoTemplate.findOne(
+            Query.query(Criteria.where("tokenHash").is(digest(rawToken))), RefreshToken.class);
+        if (existing != null) {
+            revokeFamily(existing.getFamilyId());
+        }
+    }
+    
+    private void revokeFamily(String familyId) {
+        mongoTemplate.remove(Query.query(Criteria.where("familyId").is(familyId)), RefreshToken.class);
+    }
+    
+    private static String digest(String rawToken) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.netflix_server.service;
+
+import com.example.netflix_server.exception.ServiceBusyException;
+import com.example.netflix_server.exception.StreamLimitExceededException;
+import com.example.netflix_server.util.ThrottledChannel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control and bandwidth shaping for video responses.
+ *
+ * Every response that sends video holds a lease until its body is written: at
+ * most max-per-user at a time per client (JWT user id, or IP for anonymous
+ * viewers) and max-concurrent in total. When the global cap is reached, requests
+ * wait briefly in a bounded queue and are then answered with 503 and Retry-After.
+ * Per-client counts are CAS-updated counters in a concurrent map; a counter that
+ * drops to zero is retired and removed, so idle clients cost nothing.
+ */
+@Service
+public class StreamAdmissionService {
+    
+    // Marks a retired per-client counter; acquirers seeing it start over with a fresh one
+    private static final int RETIRED = -1;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${media.stream.admission.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${media.stream.admission.max-per-user:3}")
+    private int maxPerUser;
+    
+    @Value("${media.stream.admission.max-concurrent:200}")
+    private int maxConcurrent;
+    
+    @Value("${media.stream.admission.max-queued:100}")
+    private int maxQueued;
+    
+    @Value("${media.stream.admission.queue-timeout:PT2S}")
+    private Duration queueTimeout;
+    
+    @Value("${media.stream.shaping.enabled:true}")
+    private boolean shapingEnabled;
+    
+    // Multiple of the bitrate a stream may use; above 1 so players can fill their
+    // buffer and adaptive players still measure enough throughput to switch up
+    @Value("${media.stream.shaping.headroom:2.0}")
+    private double headroom;
+    
+    // Sent at full speed before shaping starts, for fast start-up and seeking
+    @Value("${media.stream.shaping.burst:PT4S}")
+    private Duration burst;
+    
+    // Applied when the bitrate of a file is unknown (progressive /stream); 0 leaves it unshaped
+    @Value("${media.stream.shaping.default-bitrate:0}")
+    private long defaultBitrate;
+    
+    private Semaphore slots;
+    
+    private final AtomicInteger queued = new AtomicInteger();
+    
+    private final Map<String, AtomicInteger> activeByClient = new ConcurrentHashMap<>();
+    
+    private Counter rejectedUserLimit;
+    private Counter rejectedBusy;
+    
+    /**
+     * Held while a response streams video; closing it more than once is harmless
+     */
+    public interface StreamLease extends AutoCloseable {
+        
+        @Override
+        void close();
+    }
+    
+    private static final StreamLease NO_LEASE = () -> { };
+    
+    @PostConstruct
+    void init() {
+        slots = new Semaphore(maxConcurrent, true);
+        Gauge.builder("media.stream.active", slots, semaphore -> maxConcurrent - semaphore.availablePermits())
+            .description("Video responses currently being written")
+            .register(meterRegistry);
+        Gauge.builder("media.stream.queued", queued, AtomicInteger::get)
+            .description("Video requests waiting for a global stream slot")
+            .register(meterRegistry);
+        Gauge.builder("media.stream.active.clients", activeByClient, Map::size)
+            .description("Clients with at least one active video response")
+            .register(meterRegistry);
+        rejectedUserLimit = Counter.builder("media.stream.rejected").tag("reason", "user-limit")
+            .description("Video requests refused by admission control").register(meterRegistry);
+        rejectedBusy = Counter.builder("media.stream.rejected").tag("reason", "busy")
+            .description("Video requests refused by admission control").register(meterRegistry);
+    }
+    
+    /**
+     * Whether leases track whole responses; Tomcat's sendfile completes after the
+     * handler returns, so it can only be used while this is off
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Whether a stream of the given bitrate is written through a ThrottledChannel;
+     * unshaped responses may be handed to Tomcat's sendfile instead
+     * @param bitsPerSecond the rendition bitrate, or null if unknown
+     */
+    public boolean isShaped(Long bitsPerSecond) {
+        return shapingEnabled && effectiveBitrate(bitsPerSecond) > 0;
+    }
+    
+    /**
+     * Admit a video response for a client
+     * @throws StreamLimitExceededException if the client already has max-per-user streams
+     * @throws ServiceBusyException if no global slot frees up within the queue timeout
+     */
+    public StreamLease acquire(String client) {
+        if (!enabled) {
+            return NO_LEASE;
+        }
+        AtomicInteger clientCount = reserveClientSlot(client);
+        if (!acquireGlobalSlot()) {
+            releaseClientSlot(client, clientCount);
+            rejectedBusy.increment();
+            throw new ServiceBusyException("Too many active streams, please retry shortly",
+                Math.max(1, queueTimeout.toSeconds()));
+        }
+        
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                slots.release();
+                releaseClientSlot(client, clientCount);
+            }
+        };
+    }
+    
+    /**
+     * Shape a response channel to a stream's bitrate
+     * @param bitsPerSecond the rendition bitrate, or null if unknown
+     */
+    public WritableByteChannel shape(WritableByteChannel channel, Long bitsPerSecond) {
+        if (!isShaped(bitsPerSecond)) {
+            return channel;
+        }
+        long bitrate = effectiveBitrate(bitsPerSecond);
+        long bytesPerSecond = (long) (bitrate / 8 * headroom);
+        long burstBytes = bytesPerSecond * burst.toMillis() / 1000;
+        return new ThrottledChannel(channel, bytesPerSecond, burstBytes);
+    }
+    
+    private long effectiveBitrate(Long bitsPerSecond) {
+        return bitsPerSecond != null ? bitsPerSecond : defaultBitrate;
+    }
+    
+    private AtomicInteger reserveClientSlot(String client) {
+        while (true) {
+            AtomicInteger count = activeByClient.computeIfAbsent(client, key -> new AtomicInteger());
+            int current = count.get();
+            if (current == RETIRED) {
+                // Its last lease was just released; help remove it and start over
+                activeByClient.remove(client, count);
+                continue;
+            }
+            if (current >= maxPerUser) {
+                rejectedUserLimit.increment();
+                throw new StreamLimitExceededException(
+                    "Too many concurrent streams (limit " + maxPerUser + "), stop another stream first");
+            }
+            if (count.compareAndSet(current, current + 1)) {
+                return count;
+            }
+        }
+    }
+    
+    private void releaseClientSlot(String client, AtomicInteger count) {
+        if (count.decrementAndGet() == 0 && count.compareAndSet(0, RETIRED)) {
+            activeByClient.remove(client, count);
+        }
+    }
+    
+    private boolean acquireGlobalSlot() {
+        if (slots.tryAcquire()) {
+            return true;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            return false;
+        }
+        try {
+            return slots.tryAcquire(queueTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,486 @@
+package com.example.netflix_server.service;
+
+import com.example.netflix_server.dto.MediaPatchRequest;
+import com.example.netflix_server.dto.UploadSessionRequest;
+import com.example.netflix_server.dto.UploadSessionResponse;
+import com.example.netflix_server.exception.UserNotFoundException;
+import com.example.netflix_server.model.Media;
+import com.example.netflix_server.model.UploadSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Resumable, chunked upload of video files.
+ *
+ * A session fixes the file size and chunk size up front. Each chunk is streamed
+ * from the request straight into its position in a preallocated file with
+ * positional FileChannel writes, through one small buffer, so memory per upload
+ * stays constant whatever the file size. A chunk only counts once it is fully
+ * on disk; a dropped connection just means that chunk is sent again.
+ *
+ * The SHA-256 is computed while chunks arrive in order. Chunks that arrive early
+ * are hashed from disk once the gap before them is filled, and after a restart
+ * the lost digest state is rebuilt from the chunks already on disk. Sessions and
+ * the received-chunk list live in MongoDB, so an upload can resume on any restart.
+ */
+@Service
+public class UploadService {
+    
+    private static final Logger log = LoggerFactory.getLogger(UploadService.class);
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private MediaService mediaService;
+    
+    @Autowired
+    private VideoStreamService videoStreamService;
+    
+    // Partial uploads; on the same filesystem as the storage root so completion is a rename
+    @Value("${media.upload.directory:${media.storage.root:media}/.uploads}")
+    private Path uploadDirectory;
+    
+    @Value("${media.upload.chunk-size:8MB}")
+    private DataSize chunkSize;
+    
+    @Value("${media.upload.max-file-size:20GB}")
+    private DataSize maxFileSize;
+    
+    @Value("${media.upload.session-ttl:P1D}")
+    private Duration sessionTtl;
+    
+    /**
+     * Running digest over the first hashedBytes of an upload
+     */
+    private static final class HashState {
+        MessageDigest digest = newDigest();
+        long hashedBytes;
+    }
+    
+    // In-memory only; rebuilt from disk when missing
+    private final Map<String, HashState> hashStates = new ConcurrentHashMap<>();
+    
+    /**
+     * Start an upload for a media item
+     * @throws UserNotFoundException if the media does not exist
+     * @throws IllegalArgumentException if the file is larger than allowed
+     */
+    public UploadSessionResponse createSession(UploadSessionRequest request, String userId) {
+        if (!mongoTemplate.exists(Query.query(Criteria.where("_id").is(request.getMediaId())), Media.class)) {
+            throw new UserNotFoundException("Media with ID " + request.getMediaId() + " not found");
+        }
+        if (request.getTotalSize() > maxFileSize.toBytes()) {
+            throw new IllegalArgumentException("File is larger than the maximum of " + maxFileSize);
+        }
+        
+        long size = chunkSize.toBytes();
+        int chunkCount = (int) ((request.getTotalSize() + size - 1) / size);
+        Instant now = Instant.now();
+        UploadSession session = new UploadSession(
+            null,
+            request.getMediaId(),
+            userId,
+            request.getFileName(),
+            request.getTotalSize(),
+            size,
+            chunkCount,
+            new ArrayList<>(),
+            "open",
+            null,
+            now,
+            now.plus(sessionTtl)
+        );
+        session = mongoTemplate.insert(session);
+        
+        try {
+            Files.createDirectories(uploadDirectory);
+            // Sparse preallocation, so out-of-order chunks can be written at their offsets
+            try (FileChannel channel = FileChannel.open(partPath(session.getId()),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(1), session.getTotalSize() - 1);
+            }
+        } catch (IOException e) {
+            mongoTemplate.remove(session);
+            throw new UncheckedIOException(e);
+        }
+        return toResponse(session);
+    }
+    
+    /**
+     * Current state of an upload, including the chunks still missing
+     */
+    public UploadSessionResponse getSession(String uploadId) {
+        return toResponse(findSession(uploadId));
+    }
+    
+    /**
+     * Stream one chunk from the request body into the upload file
+     * @param contentLength length of the request body, must equal the chunk's size
+     * @throws IllegalArgumentException if the chunk number or length is wrong
+     * @throws IOException if the body ends early; the chunk is not recorded and can be resent
+     */
+    public UploadSessionResponse writeChunk(String uploadId, int chunkNumber, long contentLength, InputStream body)
+            throws IOException {
+        UploadSession session = findOpenSession(uploadId);
+        if (chunkNumber < 0 || chunkNumber >= session.getChunkCount()) {
+            throw new IllegalArgumentException("Chunk number must be between 0 and " + (session.getChunkCount() - 1));
+        }
+        long offset = chunkNumber * session.getChunkSize();
+        long length = Math.min(session.getChunkSize(), session.getTotalSize() - offset);
+        if (contentLength != length) {
+            throw new IllegalArgumentException("Chunk " + chunkNumber + " must be exactly " + length + " bytes");
+        }
+        
+        // Hash while writing if this chunk is next in line; a copy, so a failed write leaves the state untouched
+        HashState state = hashStates.computeIfAbsent(uploadId, id -> new HashState());
+        MessageDigest inline = null;
+        synchronized (state) {
+            if (state.hashedBytes == offset) {
+                inline = cloneDigest(state.digest);
+            }
+        }
+        
+        byte[] buffer = new byte[BUFFER_SIZE];
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(partPath(uploadId), StandardOpenOption.WRITE);
+        } catch (NoSuchFileException e) {
+            // Completed (and moved away) since the status check
+            throw notOpen(uploadId);
+        }
+        try (channel) {
+            long position = offset;
+            long remaining = length;
+            while (remaining > 0) {
+                int read = body.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new IOException("Chunk " + chunkNumber + " ended after " + (length - remaining) + " bytes");
+                }
+                ByteBuffer data = ByteBuffer.wrap(buffer, 0, read);
+                while (data.hasRemaining()) {
+                    position += channel.write(data, position);
+                }
+                if (inline != null) {
+                    inline.update(buffer, 0, read);
+                }
+                remaining -= read;
+            }
+            channel.force(false);
+        }
+        if (body.read() >= 0) {
+            throw new IllegalArgumentException("Chunk " + chunkNumber + " is longer than " + length + " bytes");
+        }
+        
+        // Only recorded while still open; a completion that claimed the session meanwhile wins
+        UploadSession updated = mongoTemplate.findAndModify(
+            Query.query(Criteria.where("_id").is(uploadId).and("status").is("open")),
+            new Update().addToSet("receivedChunks", chunkNumber).set("expiresAt", Instant.now().plus(sessionTtl)),
+            FindAndModifyOptions.options().returnNew(true),
+            UploadSession.class
+        );
+        if (updated == null) {
+            throw notOpen(uploadId);
+        }
+        
+        synchronized (state) {
+            if (inline != null && state.hashedBytes == offset) {
+                state.digest = inline;
+                state.hashedBytes = offset + length;
+            }
+            catchUpHash(state, updated);
+        }
+        return toResponse(updated);
+    }
+    
+    /**
+     * Finish an upload: check every chunk arrived, verify the hash and attach the file to the media.
+     * The session is claimed first by switching it from open to completing, so a concurrent or
+     * retried call fails fast; on any failure the file is moved back and the session reopened.
+     * Each upload gets its own file name, so the current video stays untouched until the media
+     * points at the new one, and is deleted after that.
+     * @param expectedSha256 optional hex digest the file must match
+     * @throws IllegalArgumentException if chunks are missing, the hash does not match
+     *         or the upload is already being completed
+     */
+    public UploadSessionResponse complete(String uploadId, String expectedSha256) {
+        UploadSession session = claimSession(uploadId);
+        String videoFile = "videos/" + session.getMediaId() + "/" + uploadId + "-" + session.getFileName();
+        Path target = null;
+        String previousVideoFile = null;
+        String sha256;
+        try {
+            List<Integer> missing = missingChunks(session);
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException(
+                    "Upload is missing " + missing.size() + " chunk(s), first missing is " + missing.get(0));
+            }
+            
+            HashState state = hashStates.computeIfAbsent(uploadId, id -> new HashState());
+            synchronized (state) {
+                catchUpHash(state, session);
+                sha256 = HexFormat.of().formatHex(cloneDigest(state.digest).digest());
+            }
+            if (expectedSha256 != null && !expectedSha256.equalsIgnoreCase(sha256)) {
+                throw new IllegalArgumentException("SHA-256 mismatch: upload has " + sha256);
+            }
+            
+            Path resolved = videoStreamService.resolve(videoFile);
+            if (resolved == null) {
+                throw new IllegalArgumentException("Invalid file name: " + session.getFileName());
+            }
+            try {
+                Files.createDirectories(resolved.getParent());
+                Files.move(partPath(uploadId), resolved, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            target = resolved;
+            
+            previousVideoFile = findVideoFile(session.getMediaId());
+            MediaPatchRequest patch = new MediaPatchRequest();
+            patch.setVideoFile(videoFile);
+            mediaService.patchMedia(session.getMediaId(), patch);
+        } catch (RuntimeException e) {
+            reopen(uploadId, target);
+            throw e;
+        }
+        hashStates.remove(uploadId);
+        videoStreamService.evict(session.getMediaId());
+        deleteReplacedVideo(session.getMediaId(), previousVideoFile, videoFile);
+        
+        session.setStatus("complete");
+        session.setSha256(sha256);
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(uploadId)),
+            new Update().set("status", "complete").set("sha256", sha256), UploadSession.class);
+        return toResponse(session);
+    }
+    
+    /**
+     * Abort an upload and delete its data
+     */
+    public void abort(String uploadId) {
+        UploadSession session = findSession(uploadId);
+        delete(session);
+    }
+    
+    /**
+     * Delete uploads that have not received a chunk within the session TTL, and
+     * completions that never finished (the server stopped halfway)
+     */
+    @Scheduled(fixedDelayString = "${media.upload.cleanup-interval:PT1H}")
+    public void removeExpiredSessions() {
+        List<UploadSession> expired = mongoTemplate.find(
+            Query.query(Criteria.where("expiresAt").lt(Instant.now()).and("status").in("open", "completing")),
+            UploadSession.class);
+        expired.forEach(this::delete);
+        if (!expired.isEmpty()) {
+            log.info("Removed {} abandoned upload(s)", expired.size());
+        }
+    }
+    
+    private void delete(UploadSession session) {
+        hashStates.remove(session.getId());
+        try {
+            Files.deleteIfExists(partPath(session.getId()));
+        } catch (IOException e) {
+            log.warn("Could not delete upload data {}", partPath(session.getId()), e);
+        }
+        mongoTemplate.remove(session);
+    }
+    
+    /**
+     * Hash chunks that are on disk but were written out of order (or before a restart)
+     */
+    private void catchUpHash(HashState state, UploadSession session) {
+        Set<Integer> received = new HashSet<>(session.getReceivedChunks());
+        long size = session.getChunkSize();
+        if (!received.contains((int) (state.hashedBytes / size)) || state.hashedBytes >= session.getTotalSize()) {
+            return;
+        }
+        
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(partPath(session.getId()), StandardOpenOption.READ)) {
+            while (state.hashedBytes < session.getTotalSize() && received.contains((int) (state.hashedBytes / size))) {
+                long chunkEnd = Math.min(state.hashedBytes - state.hashedBytes % size + size, session.getTotalSize());
+                while (state.hashedBytes < chunkEnd) {
+                    buffer.clear().limit((int) Math.min(buffer.capacity(), chunkEnd - state.hashedBytes));
+                    int read = channel.read(buffer, state.hashedBytes);
+                    if (read < 0) {
+                        throw new IOException("Upload data ends at " + state.hashedBytes);
+                    }
+                    buffer.flip();
+                    state.digest.update(buffer);
+                    state.hashedBytes += read;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private UploadSession findSession(String uploadId) {
+        UploadSession session = mongoTemplate.findById(uploadId, UploadSession.class);
+        if (session == null) {
+            throw new UserNotFoundException("Upload " + uploadId + " not found");
+        }
+        return session;
+    }
+    
+    private UploadSession findOpenSession(String uploadId) {
+        UploadSession session = findSession(uploadId);
+        if (!"open".equals(session.getStatus())) {
+            throw notOpen(uploadId);
+        }
+        return session;
+    }
+    
+    /**
+     * Atomically move an open session to completing
+     */
+    private UploadSession claimSession(String uploadId) {
+        UploadSession session = mongoTemplate.findAndModify(
+            Query.query(Criteria.where("_id").is(uploadId).and("status").is("open")),
+            new Update().set("status", "completing").set("expiresAt", Instant.now().plus(sessionTtl)),
+            FindAndModifyOptions.options().returnNew(true),
+            UploadSession.class
+        );
+        if (session == null) {
+            throw notOpen(uploadId);
+        }
+        return session;
+    }
+    
+    /**
+     * The error for an upload that is no longer open
+     * @throws UserNotFoundException if it does not exist at all
+     */
+    private IllegalArgumentException notOpen(String uploadId) {
+        UploadSession current = findSession(uploadId);
+        return new IllegalArgumentException("Upload " + uploadId
+            + ("completing".equals(current.getStatus()) ? " is already being completed" : " is already complete"));
+    }
+    
+    private String findVideoFile(String mediaId) {
+        Query query = Query.query(Criteria.where("_id").is(mediaId));
+        query.fields().include("videoFile");
+        Media media = mongoTemplate.findOne(query, Media.class);
+        return media != null ? media.getVideoFile() : null;
+    }
+    
+    /**
+     * Delete the video an upload replaced, if an upload put it there; files set by hand
+     * may be shared with other media. Best effort: a failure only leaves an unreferenced file.
+     */
+    private void deleteReplacedVideo(String mediaId, String previousVideoFile, String videoFile) {
+        if (previousVideoFile == null || previousVideoFile.equals(videoFile)
+                || !previousVideoFile.startsWith("videos/" + mediaId + "/")) {
+            return;
+        }
+        Path previous = videoStreamService.resolve(previousVideoFile);
+        try {
+            if (previous != null) {
+                Files.deleteIfExists(previous);
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete replaced video {}", previous, e);
+        }
+    }
+    
+    /**
+     * Undo a failed completion: put the file back if it was moved and make the session open again
+     * @param target where the file was moved to, null if it was not
+     */
+    private void reopen(String uploadId, Path target) {
+        if (target != null) {
+            try {
+                Files.move(target, partPath(uploadId), StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // Without its data the session cannot be completed; it stays completing until it expires
+                log.error("Could not move {} back to upload {}", target, uploadId, e);
+                return;
+            }
+        }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(uploadId).and("status").is("completing")),
+            new Update().set("status", "open"), UploadSession.class);
+    }
+    
+    private Path partPath(String uploadId) {
+        return uploadDirectory.resolve(uploadId + ".part");
+    }
+    
+    private static List<Integer> missingChunks(UploadSession session) {
+        Set<Integer> received = new HashSet<>(session.getReceivedChunks());
+        return IntStream.range(0, session.getChunkCount())
+            .filter(chunk -> !received.contains(chunk))
+            .boxed()
+            .collect(Collectors.toList());
+    }
+    
+    private static UploadSessionResponse toResponse(UploadSession session) {
+        return new UploadSessionResponse(
+            session.getId(),
+            session.getMediaId(),
+            session.getFileName(),
+            session.getTotalSize(),
+            session.getChunkSize(),
+            session.getChunkCount(),
+            "open".equals(session.getStatus()) ? missingChunks(session) : List.of(),
+            session.getStatus(),
+            session.getSha256(),
+            session.getExpiresAt()
+        );
+    }
+    
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private static MessageDigest cloneDigest(MessageDigest digest) {
+        try {
+            return (MessageDigest) digest.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-256 digest cannot be cloned", e);
+        }
+    }
+}
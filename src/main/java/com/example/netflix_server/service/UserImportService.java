@@ -0,0 +1,97 @@
+package com.example.netflix_server.service;
+
+import com.example.netflix_server.dto.BulkImportResponse;
+import com.example.netflix_server.dto.UserRegistrationRequest;
+import com.example.netflix_server.model.User;
+import com.example.netflix_server.util.BulkRecordReader;
+
+import com.mongodb.bulk.BulkWriteError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming bulk import of users, for migrating accounts from the previous system.
+ *
+ * Accepts a JSON array or newline-delimited JSON of registration records. Each
+ * batch has its passwords hashed in parallel across all cores and is written with
+ * one unordered bulk insert; duplicate emails are reported per record by the
+ * unique index instead of aborting the batch.
+ */
+@Service
+public class UserImportService {
+    
+    // Mongo duplicate key error
+    private static final int DUPLICATE_KEY = 11000;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private BulkRecordReader bulkRecordReader;
+    
+    @Value("${users.import.batch-size:200}")
+    private int batchSize;
+    
+    @Value("${users.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+    
+    /**
+     * Import every record of a JSON array or NDJSON stream
+     * @param body the raw request body, read incrementally
+     * @return counts and per-record failures; if the payload is not well-formed JSON,
+     *         the report of what was imported before the error, with parseError set
+     */
+    public BulkImportResponse importUsers(InputStream body) throws IOException {
+        return bulkRecordReader.read(body, UserRegistrationRequest.class, batchSize, maxReportedErrors,
+            this::insertBatch);
+    }
+    
+    /**
+     * Hash a batch in parallel and write it with one unordered bulk insert
+     */
+    private Map<Integer, String> insertBatch(List<UserRegistrationRequest> batch) {
+        List<String> hashes = passwordHashingService.encodeAll(
+            batch.stream().map(UserRegistrationRequest::getPassword).toList());
+        
+        List<User> users = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            UserRegistrationRequest request = batch.get(i);
+            User user = new User(request.getFirstName(), request.getLastName(), request.getEmail());
+            user.setPassword(hashes.get(i));
+            users.add(user);
+        }
+        
+        Map<Integer, String> failures = new LinkedHashMap<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class)
+                .insert(users)
+                .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                String message = error.getCode() == DUPLICATE_KEY
+                    ? "User with email " + users.get(error.getIndex()).getEmail() + " already exists"
+                    : error.getMessage();
+                failures.put(error.getIndex(), message);
+            }
+        }
+        userService.onUsersImported(users);
+        return failures;
+    }
+}
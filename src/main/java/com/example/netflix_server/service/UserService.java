@@ -1,24 +1,51 @@
 package com.example.netflix_server.service;
 
+import com.example.netflix_server.cache.UserProfileCache;
 import com.example.netflix_server.dto.UserRegistrationRequest;
+import com.example.netflix_server.jfr.RepositoryCallEvent;
 import com.example.netflix_server.dto.UserResponse;
 import com.example.netflix_server.model.User;
 import com.example.netflix_server.repository.UserRepository;
 import com.example.netflix_server.exception.UserAlreadyExistsException;
 import com.example.netflix_server.exception.UserNotFoundException;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.List;
+
 @Service
+@Timed(value = "user.service", description = "User profile operations")
 public class UserService {
     
     @Autowired
     private UserRepository userRepository;
     
     @Autowired
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${users.cache.max-entries:50000}")
+    private long cacheMaxEntries;
+    
+    @Value("${users.cache.ttl:PT5M}")
+    private Duration cacheTtl;
+    
+    private UserProfileCache profileCache;
+    
+    @PostConstruct
+    void initProfileCache() {
+        profileCache = new UserProfileCache(cacheMaxEntries, cacheTtl);
+        profileCache.bindTo(meterRegistry);
+    }
     
     /**
      * Register a new user
@@ -27,29 +54,26 @@ public class UserService {
      * @throws UserAlreadyExistsException if email already exists
      */
     public UserResponse registerUser(UserRegistrationRequest registrationRequest) {
-        // Check if user already exists
-        if (userRepository.existsByEmail(registrationRequest.getEmail())) {
-            throw new UserAlreadyExistsException("User with email " + registrationRequest.getEmail() + " already exists");
-        }
-        
         // Create new user
         User user = new User();
         user.setFirstName(registrationRequest.getFirstName());
         user.setLastName(registrationRequest.getLastName());
         user.setEmail(registrationRequest.getEmail());
-        // Encrypt password before saving
-        user.setPassword(passwordEncoder.encode(registrationRequest.getPassword()));
+        // Encrypt password before saving (on the hashing pool, not the request thread)
+        user.setPassword(passwordHashingService.encode(registrationRequest.getPassword()));
         
-        // Save user to database
-        User savedUser = userRepository.save(user);
+        // Single insert; the unique index on email rejects duplicates, even under concurrency
+        User savedUser;
+        try {
+            savedUser = RepositoryCallEvent.record("users", "insert", "insert", () -> userRepository.insert(user));
+        } catch (DuplicateKeyException e) {
+            throw new UserAlreadyExistsException("User with email " + registrationRequest.getEmail() + " already exists");
+        }
         
-        // Return user response (without password)
-        return new UserResponse(
-            savedUser.getId(),
-            savedUser.getFirstName(),
-            savedUser.getLastName(),
-            savedUser.getEmail()
-        );
+        // Return user response (without password), cached so the first profile read is a hit
+        UserResponse userResponse = toResponse(savedUser);
+        profileCache.put(userResponse);
+        return userResponse;
     }
     
     /**
@@ -59,15 +83,13 @@ public class UserService {
      * @throws UserNotFoundException if user not found
      */
     public UserResponse getUserById(String userId) {
-        User user = userRepository.findById(userId)
-            .orElseThrow(() -> new UserNotFoundException("User with ID " + userId + " not found"));
-        
-        return new UserResponse(
-            user.getId(),
-            user.getFirstName(),
-            user.getLastName(),
-            user.getEmail()
-        );
+        UserResponse userResponse = profileCache.getById(userId,
+            id -> RepositoryCallEvent.record("users", "findById", "find {_id}", () -> userRepository.findById(id))
+                .map(this::toResponse).orElse(null));
+        if (userResponse == null) {
+            throw new UserNotFoundException("User with ID " + userId + " not found");
+        }
+        return userResponse;
     }
     
     /**
@@ -77,9 +99,28 @@ public class UserService {
      * @throws UserNotFoundException if user not found
      */
     public UserResponse getUserByEmail(String email) {
-        User user = userRepository.findByEmail(email)
-            .orElseThrow(() -> new UserNotFoundException("User with email " + email + " not found"));
-        
+        UserResponse userResponse = profileCache.getByEmail(email,
+            key -> RepositoryCallEvent.record("users", "findByEmail", "find {email}", () -> userRepository.findByEmail(key))
+                .map(this::toResponse).orElse(null));
+        if (userResponse == null) {
+            throw new UserNotFoundException("User with email " + email + " not found");
+        }
+        return userResponse;
+    }
+    
+    /**
+     * Drop anything cached for users created outside registerUser (bulk import)
+     */
+    public void onUsersImported(List<User> users) {
+        for (User user : users) {
+            profileCache.invalidateEmail(user.getEmail());
+        }
+    }
+    
+    /**
+     * Convert User entity to UserResponse DTO (never carries the password hash)
+     */
+    private UserResponse toResponse(User user) {
         return new UserResponse(
             user.getId(),
             user.getFirstName(),
@@ -0,0 +1,332 @@
+package com.example.netflix_server.service;
+
+import com.example.netflix_server.cache.VideoChunkCache;
+import com.example.netflix_server.exception.UserNotFoundException;
+import com.example.netflix_server.jfr.RepositoryCallEvent;
+import com.example.netflix_server.model.Media;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Locates the video file of a media item and parses Range headers against it.
+ *
+ * Media id to file path lookups are cached briefly so a player issuing many range
+ * requests does not hit MongoDB for each one; the file itself is stat'ed on every
+ * request so length, ETag and Last-Modified always describe what is on disk.
+ * Paths are resolved under media.storage.root and may not escape it.
+ *
+ * Hot ranges are also kept in an off-heap VideoChunkCache, which is filled in the
+ * background on misses and ahead of clients that read sequentially.
+ */
+@Service
+public class VideoStreamService {
+    
+    private static final MediaType MPEG_TS = MediaType.parseMediaType("video/mp2t");
+    private static final MediaType ISO_SEGMENT = MediaType.parseMediaType("video/iso.segment");
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Value("${media.storage.root:media}")
+    private String storageRoot;
+    
+    @Value("${media.stream.path-cache-ttl:PT30S}")
+    private Duration pathCacheTtl;
+    
+    // More ranges than this in one request are served as a single covering range
+    @Value("${media.stream.max-ranges:8}")
+    private int maxRanges;
+    
+    @Value("${media.chunk-cache.enabled:true}")
+    private boolean chunkCacheEnabled;
+    
+    // Off-heap budget; must fit within -XX:MaxDirectMemorySize (defaults to the max heap size)
+    @Value("${media.chunk-cache.max-size:256MB}")
+    private DataSize chunkCacheMaxSize;
+    
+    @Value("${media.chunk-cache.chunk-size:1MB}")
+    private DataSize chunkSize;
+    
+    @Value("${media.chunk-cache.loader-threads:4}")
+    private int loaderThreads;
+    
+    // Chunks (or HLS segments) loaded ahead of a client that is reading sequentially
+    @Value("${media.chunk-cache.read-ahead:4}")
+    private int readAhead;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private Path root;
+    
+    private Cache<String, Path> pathCache;
+    
+    private VideoChunkCache chunkCache;
+    
+    /**
+     * A video file as it is on disk right now
+     * @param etag strong validator derived from length and modification time
+     */
+    public record VideoFile(Path path, long length, long lastModified, String etag, MediaType contentType) {
+    }
+    
+    /**
+     * An inclusive byte range
+     */
+    public record ByteRange(long start, long end) {
+        
+        public long length() {
+            return end - start + 1;
+        }
+    }
+    
+    @PostConstruct
+    void init() {
+        root = Paths.get(storageRoot).toAbsolutePath().normalize();
+        pathCache = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(pathCacheTtl)
+            .build();
+        if (chunkCacheEnabled) {
+            chunkCache = new VideoChunkCache(chunkCacheMaxSize.toBytes(), (int) chunkSize.toBytes(),
+                loaderThreads, meterRegistry);
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        if (chunkCache != null) {
+            chunkCache.shutdown();
+        }
+    }
+    
+    /**
+     * Resolve and stat the video file of a media item
+     * @throws UserNotFoundException if the media does not exist or has no readable video file
+     */
+    public VideoFile getVideoFile(String mediaId) {
+        Path path = pathCache.get(mediaId, this::loadPath);
+        if (path == null) {
+            throw new UserNotFoundException("No video available for media with ID " + mediaId);
+        }
+        
+        try {
+            return describe(path);
+        } catch (UserNotFoundException e) {
+            pathCache.invalidate(mediaId);
+            throw new UserNotFoundException("No video available for media with ID " + mediaId);
+        }
+    }
+    
+    /**
+     * Forget the cached file path of a media item, after its videoFile changed
+     */
+    public void evict(String mediaId) {
+        pathCache.invalidate(mediaId);
+    }
+    
+    /**
+     * Stat a file under the storage root
+     * @throws UserNotFoundException if it is missing or not a regular file
+     */
+    public VideoFile describe(Path path) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            throw new UserNotFoundException("File " + root.relativize(path) + " not found");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!attributes.isRegularFile()) {
+            throw new UserNotFoundException("File " + root.relativize(path) + " not found");
+        }
+        
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+        return new VideoFile(path, length, lastModified, etag, contentType(path.getFileName().toString()));
+    }
+    
+    /**
+     * Resolve a path relative to the storage root
+     * @return null if the path would point outside the root
+     */
+    public Path resolve(String relativePath) {
+        Path path = root.resolve(relativePath).normalize();
+        return path.startsWith(root) ? path : null;
+    }
+    
+    /**
+     * Check whether a range should be served through the chunk cache, i.e. its first chunk is hot.
+     * A miss queues that chunk for loading, so ranges that keep being requested become hits.
+     */
+    public boolean isCached(VideoFile file, ByteRange range) {
+        return chunkCache != null
+            && chunkCache.contains(file.path(), file.length(), file.lastModified(), range.start());
+    }
+    
+    /**
+     * Write a range through the chunk cache (only after isCached returned true)
+     */
+    public void writeCached(VideoFile file, ByteRange range, WritableByteChannel target) throws IOException {
+        chunkCache.write(file.path(), file.length(), file.lastModified(), range.start(), range.end(), target);
+    }
+    
+    /**
+     * Count bytes sent from disk by sendfile or a plain copy
+     */
+    public void recordDiskRead(long bytes) {
+        if (chunkCache != null) {
+            chunkCache.recordDiskRead(bytes);
+        }
+    }
+    
+    /**
+     * Prefetch the chunks after a range if the client is reading the file sequentially
+     */
+    public void readAhead(String client, VideoFile file, ByteRange range) {
+        if (chunkCache == null || range.end() + 1 >= file.length()) {
+            return;
+        }
+        int slack = chunkCache.getChunkSize();
+        if (chunkCache.isSequential(client, file.path().toString(), range.start(), range.end(), slack)) {
+            chunkCache.prefetch(file.path(), file.length(), file.lastModified(), range.end() + 1, readAhead);
+        }
+    }
+    
+    /**
+     * Prefetch the next HLS segments if the client asked for the segment after its previous one
+     * @param stream identifies the playback (not the rendition, so quality switches stay sequential)
+     * @param following loads the segments after the given index, at most the given count
+     */
+    public void readAheadSegments(String client, String stream, int index,
+            BiFunction<Integer, Integer, List<Path>> following) {
+        if (chunkCache == null || index < 0 || !chunkCache.isSequential(client, stream, index, index, 0)) {
+            return;
+        }
+        for (Path segment : following.apply(index, readAhead)) {
+            try {
+                VideoFile file = describe(segment);
+                chunkCache.prefetch(file.path(), file.length(), file.lastModified(), 0, Integer.MAX_VALUE);
+            } catch (UserNotFoundException e) {
+                // Segment removed since the playlist was built; nothing to prefetch
+            }
+        }
+    }
+    
+    /**
+     * Parse a Range header (RFC 9110 section 14.2)
+     * @return null if the header should be ignored and the whole file served,
+     *         an empty list if no range is satisfiable (416),
+     *         otherwise the requested ranges sorted and with overlaps merged
+     */
+    public List<ByteRange> parseRanges(String rangeHeader, long length) {
+        if (rangeHeader == null || !rangeHeader.startsWith("bytes=")) {
+            return null;
+        }
+        
+        List<ByteRange> ranges = new ArrayList<>();
+        for (String spec : rangeHeader.substring("bytes=".length()).split(",")) {
+            spec = spec.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            try {
+                if (dash == 0) {
+                    // Suffix range: the last N bytes
+                    long suffix = Long.parseLong(spec.substring(1));
+                    if (suffix > 0 && length > 0) {
+                        ranges.add(new ByteRange(Math.max(0, length - suffix), length - 1));
+                    }
+                    continue;
+                }
+                long start = Long.parseLong(spec.substring(0, dash));
+                // Open-ended: up to the last byte, so a start past the end is unsatisfiable rather than invalid
+                long end = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+                if (end < start) {
+                    return null;
+                }
+                if (start < length) {
+                    ranges.add(new ByteRange(start, Math.min(end, length - 1)));
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return coalesce(ranges);
+    }
+    
+    private List<ByteRange> coalesce(List<ByteRange> ranges) {
+        if (ranges.size() <= 1) {
+            return ranges;
+        }
+        ranges.sort(Comparator.comparingLong(ByteRange::start));
+        List<ByteRange> merged = new ArrayList<>();
+        ByteRange current = ranges.get(0);
+        for (ByteRange next : ranges.subList(1, ranges.size())) {
+            if (next.start() <= current.end() + 1) {
+                current = new ByteRange(current.start(), Math.max(current.end(), next.end()));
+            } else {
+                merged.add(current);
+                current = next;
+            }
+        }
+        merged.add(current);
+        
+        // Many small ranges cost more in part headers than they save; serve one span instead
+        if (merged.size() > maxRanges) {
+            return List.of(new ByteRange(merged.get(0).start(), merged.get(merged.size() - 1).end()));
+        }
+        return merged;
+    }
+    
+    private Path loadPath(String mediaId) {
+        Query query = Query.query(Criteria.where("_id").is(mediaId));
+        query.fields().include("videoFile");
+        Media media = RepositoryCallEvent.record("media", "findVideoFile", "find {_id} project {videoFile}",
+            () -> mongoTemplate.findOne(query, Media.class));
+        if (media == null || media.getVideoFile() == null || media.getVideoFile().isBlank()) {
+            return null;
+        }
+        return resolve(media.getVideoFile());
+    }
+    
+    private static MediaType contentType(String fileName) {
+        // HLS segment types are missing from the default mime table
+        if (fileName.endsWith(".ts")) {
+            return MPEG_TS;
+        }
+        if (fileName.endsWith(".m4s")) {
+            return ISO_SEGMENT;
+        }
+        return MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.netflix_server.util;
+
+import com.example.netflix_server.dto.BulkImportResponse;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming reader shared by the bulk import endpoints.
+ *
+ * Accepts a JSON array or newline-delimited JSON. Records are parsed and validated
+ * one at a time and handed to a sink in fixed-size batches, so memory use depends
+ * on the batch size and not on the payload size. Invalid records and records the
+ * sink could not write are reported individually; a syntax error stops reading,
+ * and the report then tells what was imported before it.
+ */
+@Component
+public class BulkRecordReader {
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private Validator validator;
+    
+    /**
+     * Writes one batch of valid records
+     */
+    @FunctionalInterface
+    public interface BatchSink<T> {
+        
+        /**
+         * @return failed records as position in the batch -> message, empty if all were written
+         */
+        Map<Integer, String> write(List<T> batch);
+    }
+    
+    /**
+     * Read every record of a JSON array or NDJSON stream
+     * @param body the raw request body, read incrementally
+     * @param type the type each record is mapped to and validated as
+     * @param maxReportedErrors cap on the per-record failures kept in the report
+     * @return counts and per-record failures; if the payload is not well-formed JSON,
+     *         the report of what was imported before the error, with parseError set
+     */
+    public <T> BulkImportResponse read(InputStream body, Class<T> type, int batchSize, int maxReportedErrors,
+                                       BatchSink<T> sink) throws IOException {
+        Import<T> run = new Import<>(sink, batchSize, maxReportedErrors);
+        
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            JsonToken first = parser.nextToken();
+            // A top-level array is unwrapped, otherwise the body is a sequence of root values (NDJSON)
+            boolean array = first == JsonToken.START_ARRAY;
+            JsonToken token = array ? parser.nextToken() : first;
+            
+            while (token != null && token != JsonToken.END_ARRAY) {
+                JsonNode node = parser.readValueAsTree();
+                int index = run.report.getReceived();
+                run.report.setReceived(index + 1);
+                
+                T record = toValidRecord(node, type, index, run);
+                if (record != null) {
+                    run.add(record, index);
+                }
+                token = parser.nextToken();
+            }
+        } catch (JsonParseException e) {
+            // Records before the syntax error are still imported
+            run.report.setParseError("Malformed JSON at line " + e.getLocation().getLineNr()
+                + ", column " + e.getLocation().getColumnNr() + ", after " + run.report.getReceived()
+                + " records: " + e.getOriginalMessage());
+        }
+        
+        run.flush();
+        return run.report;
+    }
+    
+    /**
+     * Map and validate one record, recording a failure instead of throwing
+     */
+    private <T> T toValidRecord(JsonNode node, Class<T> type, int index, Import<T> run) {
+        T record;
+        try {
+            record = objectMapper.treeToValue(node, type);
+        } catch (IOException e) {
+            run.recordError(index, "Invalid record: " + e.getMessage());
+            return null;
+        }
+        
+        Set<ConstraintViolation<T>> violations = validator.validate(record);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+            run.recordError(index, message);
+            return null;
+        }
+        return record;
+    }
+    
+    /**
+     * State of one import: the pending batch and the report
+     */
+    private static final class Import<T> {
+        
+        final BulkImportResponse report = new BulkImportResponse();
+        final BatchSink<T> sink;
+        final int batchSize;
+        final int maxReportedErrors;
+        final List<T> batch;
+        // Position of each batched record in the payload
+        final List<Integer> batchIndexes;
+        
+        Import(BatchSink<T> sink, int batchSize, int maxReportedErrors) {
+            this.sink = sink;
+            this.batchSize = batchSize;
+            this.maxReportedErrors = maxReportedErrors;
+            this.batch = new ArrayList<>(batchSize);
+            this.batchIndexes = new ArrayList<>(batchSize);
+        }
+        
+        void add(T record, int index) {
+            batch.add(record);
+            batchIndexes.add(index);
+            if (batch.size() == batchSize) {
+                flush();
+            }
+        }
+        
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            Map<Integer, String> failures = sink.write(batch);
+            failures.forEach((position, message) -> recordError(batchIndexes.get(position), message));
+            report.setInserted(report.getInserted() + batch.size() - failures.size());
+            
+            batch.clear();
+            batchIndexes.clear();
+        }
+        
+        void recordError(int index, String message) {
+            report.setFailed(report.getFailed() + 1);
+            if (report.getErrors().size() < maxReportedErrors) {
+                report.getErrors().add(new BulkImportResponse.RecordError(index, message));
+            } else {
+                report.setErrorsTruncated(true);
+            }
+        }
+    }
+}
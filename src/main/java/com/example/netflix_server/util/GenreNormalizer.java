@@ -0,0 +1,38 @@
+package com.example.netflix_server.util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Turns the free-form genre string ("Action, Crime, Drama") into the
+ * normalized array stored in Media.genres ("action", "crime", "drama").
+ */
+public final class GenreNormalizer {
+    
+    private GenreNormalizer() {
+    }
+    
+    /**
+     * Split, trim, lowercase and de-duplicate a comma separated genre string
+     * @return the normalized genres, empty when the input is null or blank
+     */
+    public static List<String> normalize(String genre) {
+        if (genre == null || genre.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(genre.split(","))
+            .map(GenreNormalizer::normalizeOne)
+            .filter(value -> !value.isEmpty())
+            .distinct()
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Normalize a single genre name, e.g. a browse filter value
+     */
+    public static String normalizeOne(String genre) {
+        return genre.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,29 +1,51 @@
 package com.example.netflix_server.util;
 
+import com.example.netflix_server.security.AuthenticatedUser;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
     
+    private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
+    
     @Value("${jwt.secret:mySecretKey123456789012345678901234567890}")
     private String jwtSecret;
     
-    @Value("${jwt.expiration:86400000}") // 24 hours in milliseconds
+    // Short-lived: clients renew through /api/v1/auth/refresh
+    @Value("${jwt.expiration:900000}") // 15 minutes in milliseconds
     private int jwtExpirationMs;
     
+    // Built once: deriving the key and the parser per call showed up on every request
+    private SecretKey signingKey;
+    
+    private JwtParser jwtParser;
+    
+    @PostConstruct
+    void initSigning() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+    
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        return signingKey;
     }
     
     public String generateJwtToken(String email, String userId) {
         return Jwts.builder()
                 .setSubject(email)
+                .setId(UUID.randomUUID().toString())
                 .claim("userId", userId)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
@@ -31,19 +53,36 @@ public class JwtUtil {
                 .compact();
     }
     
+    /**
+     * Verify a token and read its claims in a single parse
+     * @return the principal carried by the token
+     * @throws JwtException if the token is malformed, expired or wrongly signed
+     */
+    public AuthenticatedUser parseAndVerify(String token) {
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        return new AuthenticatedUser(
+                claims.getSubject(),
+                claims.get("userId", String.class),
+                claims.getId(),
+                claims.getExpiration().toInstant());
+    }
+    
+    /**
+     * Lifetime of newly issued access tokens, in milliseconds
+     */
+    public int getJwtExpirationMs() {
+        return jwtExpirationMs;
+    }
+    
     public String getEmailFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+        return jwtParser
                 .parseClaimsJws(token)
                 .getBody()
                 .getSubject();
     }
     
     public String getUserIdFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+        return jwtParser
                 .parseClaimsJws(token)
                 .getBody()
                 .get("userId", String.class);
@@ -51,19 +90,16 @@ public class JwtUtil {
     
     public boolean validateJwtToken(String authToken) {
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(authToken);
+            jwtParser.parseClaimsJws(authToken);
             return true;
         } catch (MalformedJwtException e) {
-            System.err.println("Invalid JWT token: " + e.getMessage());
+            logger.debug("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
-            System.err.println("JWT token is expired: " + e.getMessage());
+            logger.debug("JWT token is expired: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
-            System.err.println("JWT token is unsupported: " + e.getMessage());
+            logger.debug("JWT token is unsupported: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
-            System.err.println("JWT claims string is empty: " + e.getMessage());
+            logger.debug("JWT claims string is empty: {}", e.getMessage());
         }
         return false;
     }
@@ -0,0 +1,91 @@
+package com.example.netflix_server.util;
+
+import com.example.netflix_server.dto.MediaResponse;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sparse fieldsets for media responses (?fields=title,image,rentPrice).
+ *
+ * The same field names are used for the Mongo projection and for the slim
+ * response shape, so only whitelisted MediaResponse properties are accepted.
+ */
+public final class MediaFieldSelector {
+    
+    private static final Map<String, Function<MediaResponse, Object>> FIELDS = new LinkedHashMap<>();
+    
+    static {
+        FIELDS.put("id", MediaResponse::getId);
+        FIELDS.put("title", MediaResponse::getTitle);
+        FIELDS.put("image", MediaResponse::getImage);
+        FIELDS.put("largePoster", MediaResponse::getLargePoster);
+        FIELDS.put("synopsis", MediaResponse::getSynopsis);
+        FIELDS.put("rentPrice", MediaResponse::getRentPrice);
+        FIELDS.put("purchasePrice", MediaResponse::getPurchasePrice);
+        FIELDS.put("year", MediaResponse::getYear);
+        FIELDS.put("genre", MediaResponse::getGenre);
+        FIELDS.put("genres", MediaResponse::getGenres);
+        FIELDS.put("description", MediaResponse::getDescription);
+        FIELDS.put("mediaType", MediaResponse::getMediaType);
+        FIELDS.put("featured", MediaResponse::getFeatured);
+        FIELDS.put("popularity", MediaResponse::getPopularity);
+        FIELDS.put("revision", MediaResponse::getRevision);
+        FIELDS.put("renditions", MediaResponse::getRenditions);
+    }
+    
+    private MediaFieldSelector() {
+    }
+    
+    /**
+     * Parse a comma separated fields parameter
+     * @return the selected fields in request order (id always included), or null when no selection was made
+     * @throws IllegalArgumentException if a field name is unknown
+     */
+    public static Set<String> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!FIELDS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            selected.add(name);
+        }
+        return selected;
+    }
+    
+    /**
+     * Reduce a response to the selected fields
+     */
+    public static Map<String, Object> project(MediaResponse media, Set<String> fields) {
+        Map<String, Object> projected = new LinkedHashMap<>();
+        for (String field : fields) {
+            projected.put(field, FIELDS.get(field).apply(media));
+        }
+        return projected;
+    }
+    
+    /**
+     * Reduce a list of responses to the selected fields, or return it unchanged without a selection
+     */
+    public static List<?> project(List<MediaResponse> mediaList, Set<String> fields) {
+        if (fields == null) {
+            return mediaList;
+        }
+        return mediaList.stream()
+            .map(media -> project(media, fields))
+            .collect(Collectors.toList());
+    }
+}
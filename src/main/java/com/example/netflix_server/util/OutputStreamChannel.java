@@ -0,0 +1,65 @@
+package com.example.netflix_server.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Channel view of a response stream.
+ *
+ * Unlike Channels.newChannel, heap buffers are written straight from their backing
+ * array. Servlet output streams only take byte arrays, so a direct buffer (the
+ * off-heap chunk cache, FileChannel.transferTo) still needs one copy to the heap;
+ * it goes through a single array reused for the whole response, in writes as large
+ * as the ThrottledChannel ones.
+ */
+public final class OutputStreamChannel implements WritableByteChannel {
+    
+    private static final int TRANSFER_SIZE = 64 * 1024;
+    
+    private final OutputStream out;
+    private byte[] transferBuffer;
+    private boolean open = true;
+    
+    public OutputStreamChannel(OutputStream out) {
+        this.out = out;
+    }
+    
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        int length = src.remaining();
+        if (src.hasArray()) {
+            out.write(src.array(), src.arrayOffset() + src.position(), length);
+            src.position(src.limit());
+            return length;
+        }
+        
+        if (transferBuffer == null) {
+            transferBuffer = new byte[TRANSFER_SIZE];
+        }
+        while (src.hasRemaining()) {
+            int count = Math.min(src.remaining(), TRANSFER_SIZE);
+            src.get(transferBuffer, 0, count);
+            out.write(transferBuffer, 0, count);
+        }
+        return length;
+    }
+    
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (open) {
+            open = false;
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.netflix_server.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Token-bucket rate limit on writes to a channel.
+ *
+ * The bucket starts full, so the first burst bytes go out at full speed (player
+ * start-up), after which output is held to the configured rate. A channel is
+ * written by one thread at a time, so the bucket needs no synchronization.
+ */
+public final class ThrottledChannel implements WritableByteChannel {
+    
+    // Largest write handed to the delegate at once, keeps the output smooth
+    private static final int MAX_WRITE = 64 * 1024;
+    
+    private final WritableByteChannel delegate;
+    private final double bytesPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+    
+    /**
+     * @param bytesPerSecond sustained output rate
+     * @param burstBytes bucket size, also the amount that may be sent without waiting
+     */
+    public ThrottledChannel(WritableByteChannel delegate, long bytesPerSecond, long burstBytes) {
+        this.delegate = delegate;
+        this.bytesPerNano = bytesPerSecond / (double) TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(burstBytes, MAX_WRITE);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+    
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        int total = 0;
+        while (src.hasRemaining()) {
+            refill();
+            if (tokens < 1) {
+                LockSupport.parkNanos((long) Math.ceil((Math.min(src.remaining(), MAX_WRITE) - tokens) / bytesPerNano));
+                if (Thread.interrupted()) {
+                    throw new InterruptedIOException("Interrupted while throttling");
+                }
+                continue;
+            }
+            
+            int length = (int) Math.min(Math.min(src.remaining(), MAX_WRITE), tokens);
+            int limit = src.limit();
+            src.limit(src.position() + length);
+            int written;
+            try {
+                written = delegate.write(src);
+            } finally {
+                src.limit(limit);
+            }
+            tokens -= written;
+            total += written;
+        }
+        return total;
+    }
+    
+    @Override
+    public boolean isOpen() {
+        return delegate.isOpen();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+    
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * bytesPerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.netflix_server.cache;
+
+import com.example.netflix_server.dto.MediaResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FeaturedRailSnapshotTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void refreshedButUnchangedListingKeepsTheSnapshot() {
+        FeaturedRailSnapshot snapshot = FeaturedRailSnapshot.of(List.of(media("1", 1L), media("2", 1L)), "ok", objectMapper);
+
+        // A cache refresh loads new instances with the same content
+        assertTrue(snapshot.isBuiltFrom(List.of(media("1", 1L), media("2", 1L))));
+    }
+
+    @Test
+    void changedListingNeedsANewSnapshot() {
+        FeaturedRailSnapshot snapshot = FeaturedRailSnapshot.of(List.of(media("1", 1L), media("2", 1L)), "ok", objectMapper);
+
+        assertFalse(snapshot.isBuiltFrom(List.of(media("1", 2L), media("2", 1L))));
+        assertFalse(snapshot.isBuiltFrom(List.of(media("2", 1L), media("1", 1L))));
+        assertFalse(snapshot.isBuiltFrom(List.of(media("1", 1L))));
+
+        MediaResponse migrated = media("1", 1L);
+        migrated.setGenres(List.of("drama"));
+        assertFalse(snapshot.isBuiltFrom(List.of(migrated, media("2", 1L))));
+    }
+
+    private static MediaResponse media(String id, Long revision) {
+        MediaResponse media = new MediaResponse();
+        media.setId(id);
+        media.setTitle("Title " + id);
+        media.setRevision(revision);
+        return media;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.netflix_server.controller;
+
+import com.example.netflix_server.exception.StreamLimitExceededException;
+import com.example.netflix_server.security.AuthenticatedUser;
+import com.example.netflix_server.service.StreamAdmissionService;
+import com.example.netflix_server.service.VideoStreamService;
+import com.example.netflix_server.service.VideoStreamService.VideoFile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MediaStreamControllerTest {
+
+    private static final String MEDIA_ID = "0123456789abcdef01234567";
+
+    @TempDir
+    Path root;
+
+    private final MediaStreamController controller = new MediaStreamController();
+
+    private byte[] data;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        data = new byte[256 * 1024];
+        Path video = Files.write(root.resolve("video.mp4"), data);
+        VideoStreamService videoStreamService = mock(VideoStreamService.class);
+        when(videoStreamService.getVideoFile(MEDIA_ID))
+            .thenReturn(new VideoFile(video, data.length, 0, "\"v1\"", MediaType.parseMediaType("video/mp4")));
+
+        StreamAdmissionService admission = new StreamAdmissionService();
+        ReflectionTestUtils.setField(admission, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(admission, "enabled", true);
+        ReflectionTestUtils.setField(admission, "maxPerUser", 2);
+        ReflectionTestUtils.setField(admission, "maxConcurrent", 10);
+        ReflectionTestUtils.setField(admission, "maxQueued", 0);
+        ReflectionTestUtils.setField(admission, "queueTimeout", Duration.ZERO);
+        ReflectionTestUtils.setField(admission, "shapingEnabled", true);
+        // Progressive streams are unshaped, the case that used to go to sendfile without a lease
+        ReflectionTestUtils.setField(admission, "defaultBitrate", 0L);
+        ReflectionTestUtils.invokeMethod(admission, "init");
+
+        ReflectionTestUtils.setField(controller, "videoStreamService", videoStreamService);
+        ReflectionTestUtils.setField(controller, "streamAdmissionService", admission);
+        ReflectionTestUtils.setField(controller, "sendfileMinSize", DataSize.ofKilobytes(48));
+
+        AuthenticatedUser user = new AuthenticatedUser("a@example.com", "user-1", "token-1",
+            Instant.now().plusSeconds(60));
+        SecurityContextHolder.getContext()
+            .setAuthentication(new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void rejectsAUserAtTheStreamLimit() throws IOException {
+        StreamingResponseBody first = stream();
+        stream();
+
+        assertThrows(StreamLimitExceededException.class, this::stream);
+
+        // Writing a body to the end gives its slot back
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        first.writeTo(out);
+        assertEquals(data.length, out.size());
+        stream();
+    }
+
+    private StreamingResponseBody stream() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/media/" + MEDIA_ID + "/stream");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        ResponseEntity<?> response = controller.streamMedia(MEDIA_ID, null, null, request,
+            new ServletWebRequest(request, new MockHttpServletResponse()));
+
+        assertNull(request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        return assertInstanceOf(StreamingResponseBody.class, response.getBody());
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.netflix_server.search;
+
+import com.example.netflix_server.dto.MediaResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MediaSearchIndexTest {
+
+    @Test
+    void findsTitlesContainingTheQueryIgnoringCase() {
+        MediaSearchIndex index = new MediaSearchIndex();
+        index.rebuild(List.of(media("1", "The Dark Knight"), media("2", "Knight Rider"), media("3", "Inception")));
+
+        assertEquals(List.of("1", "2"), ids(index.search("KNIGHT")));
+        assertEquals(List.of("1"), ids(index.search("  dark kn ")));
+        assertEquals(List.of(), ids(index.search("knights")));
+    }
+
+    @Test
+    void shortQueriesFallBackToAScan() {
+        MediaSearchIndex index = new MediaSearchIndex();
+        index.rebuild(List.of(media("1", "Up"), media("2", "Cars"), media("3", "It")));
+
+        assertEquals(List.of("1"), ids(index.search("up")));
+        assertEquals(List.of("2"), ids(index.search("a")));
+        assertEquals(List.of("1", "2", "3"), ids(index.search("")));
+    }
+
+    @Test
+    void matchesRequireContiguousTrigrams() {
+        MediaSearchIndex index = new MediaSearchIndex();
+        // Both titles contain the trigrams "abc" and "bcd" but only one has "abcd"
+        index.rebuild(List.of(media("1", "abc bcd"), media("2", "xabcdx")));
+
+        assertEquals(List.of("2"), ids(index.search("abcd")));
+    }
+
+    @Test
+    void packsFullSixteenBitCharacters() {
+        MediaSearchIndex index = new MediaSearchIndex();
+        // Same low bytes, different high bytes: distinct trigrams only if all 16 bits are kept
+        index.rebuild(List.of(media("1", "ŁłŃ"), media("2", "ɁɂɃ"), media("3", "東京物語")));
+
+        assertEquals(List.of("1"), ids(index.search("ŁłŃ")));
+        assertEquals(List.of("2"), ids(index.search("ɁɂɃ")));
+        assertEquals(List.of("3"), ids(index.search("京物語")));
+    }
+
+    @Test
+    void updatedAndRemovedItemsAreTombstoned() {
+        MediaSearchIndex index = new MediaSearchIndex();
+        index.rebuild(List.of(media("1", "Alien"), media("2", "Aliens")));
+
+        index.upsert(media("1", "Predator"));
+        index.remove("2");
+
+        assertEquals(List.of(), ids(index.search("alien")));
+        assertEquals(List.of("1"), ids(index.search("predator")));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void compactionKeepsOnlyTheLatestVersionOfEachItem() {
+        MediaSearchIndex index = new MediaSearchIndex();
+        List<MediaResponse> items = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            items.add(media(String.valueOf(i), "Movie " + i));
+        }
+        index.rebuild(items);
+
+        // Enough tombstones to cross the compaction threshold more than once
+        for (int round = 0; round < 3; round++) {
+            List<MediaResponse> renamed = new ArrayList<>();
+            for (int i = 0; i < 1500; i++) {
+                renamed.add(media(String.valueOf(i), "Film " + round + "-" + i + "."));
+            }
+            index.upsertAll(renamed);
+        }
+
+        assertEquals(2000, index.size());
+        assertEquals(500, index.search("movie").size());
+        assertEquals(List.of("42"), ids(index.search("film 2-42.")));
+        assertTrue(index.search("film 1-").isEmpty());
+    }
+
+    private static MediaResponse media(String id, String title) {
+        MediaResponse media = new MediaResponse();
+        media.setId(id);
+        media.setTitle(title);
+        return media;
+    }
+
+    private static List<String> ids(List<MediaResponse> results) {
+        return results.stream().map(MediaResponse::getId).toList();
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.netflix_server.search;
+
+import com.example.netflix_server.dto.MediaSuggestion;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TitleSuggesterTest {
+
+    @Test
+    void ranksByPopularityThenTitle() {
+        TitleSuggester suggester = new TitleSuggester(10);
+        suggester.upsert(suggestion("1", "Star Trek", 50));
+        suggester.upsert(suggestion("2", "Star Wars", 90));
+        suggester.upsert(suggestion("3", "Stardust", 50));
+        suggester.upsert(suggestion("4", "Alien", 99));
+
+        assertEquals(List.of("2", "1", "3"), ids(suggester.suggest("STAR", 10)));
+        assertEquals(List.of("2", "1"), ids(suggester.suggest("star", 2)));
+        assertEquals(List.of(), ids(suggester.suggest("starz", 10)));
+    }
+
+    @Test
+    void splitsAnEdgeWhereKeysDiverge() {
+        TitleSuggester suggester = new TitleSuggester(10);
+        suggester.upsert(suggestion("1", "Interstellar", 10));
+        // Diverges inside the "interstellar" edge, and ends inside it
+        suggester.upsert(suggestion("2", "Internship", 20));
+        suggester.upsert(suggestion("3", "Inter", 5));
+
+        assertEquals(List.of("2", "1", "3"), ids(suggester.suggest("in", 10)));
+        assertEquals(List.of("2", "1", "3"), ids(suggester.suggest("inter", 10)));
+        assertEquals(List.of("1"), ids(suggester.suggest("inters", 10)));
+        assertEquals(List.of("2"), ids(suggester.suggest("intern", 10)));
+        assertEquals(List.of(), ids(suggester.suggest("interx", 10)));
+    }
+
+    @Test
+    void keepsOnlyTheTopResultsPerNode() {
+        TitleSuggester suggester = new TitleSuggester(2);
+        suggester.upsert(suggestion("1", "Toy Story", 10));
+        suggester.upsert(suggestion("2", "Toy Story 2", 30));
+        suggester.upsert(suggestion("3", "Toy Story 3", 20));
+
+        assertEquals(List.of("2", "3"), ids(suggester.suggest("toy", 10)));
+    }
+
+    @Test
+    void updateMovesAnEntryToItsNewTitle() {
+        TitleSuggester suggester = new TitleSuggester(10);
+        suggester.upsert(suggestion("1", "Working Title", 10));
+        suggester.upsert(suggestion("1", "Final Title", 10));
+
+        assertEquals(List.of(), ids(suggester.suggest("work", 10)));
+        assertEquals(List.of("1"), ids(suggester.suggest("final", 10)));
+    }
+
+    @Test
+    void removalPrunesBranchesWithoutSuggestions() throws Exception {
+        TitleSuggester suggester = new TitleSuggester(10);
+        suggester.upsert(suggestion("1", "Matrix", 10));
+        suggester.upsert(suggestion("2", "Mad Max", 20));
+        suggester.upsert(suggestion("3", "Jaws", 30));
+
+        suggester.remove("2");
+        assertEquals(List.of("1"), ids(suggester.suggest("ma", 10)));
+        assertEquals(List.of("3", "1"), ids(suggester.suggest("", 10)));
+
+        suggester.remove("1");
+        suggester.remove("3");
+        assertEquals(List.of(), ids(suggester.suggest("", 10)));
+        assertEquals(0, rootChildren(suggester));
+
+        // Removing an unknown id is a no-op
+        suggester.remove("missing");
+        suggester.upsert(suggestion("4", "Matrix", 1));
+        assertEquals(List.of("4"), ids(suggester.suggest("matrix", 10)));
+    }
+
+    @Test
+    void resultsCannotChangeTheStoredSuggestions() {
+        TitleSuggester suggester = new TitleSuggester(10);
+        suggester.upsert(suggestion("1", "Heat", 10));
+        suggester.upsert(suggestion("2", "Her", 20));
+
+        List<MediaSuggestion> results = suggester.suggest("he", 10);
+        assertThrows(UnsupportedOperationException.class, () -> results.set(0, suggestion("3", "Hook", 5)));
+        assertThrows(UnsupportedOperationException.class, () -> results.sort(null));
+
+        assertEquals(List.of("2", "1"), ids(suggester.suggest("he", 10)));
+    }
+
+    private static int rootChildren(TitleSuggester suggester) throws Exception {
+        Field rootField = TitleSuggester.class.getDeclaredField("root");
+        rootField.setAccessible(true);
+        Object root = rootField.get(suggester);
+        Field children = root.getClass().getDeclaredField("children");
+        children.setAccessible(true);
+        return ((Object[]) children.get(root)).length;
+    }
+
+    private static MediaSuggestion suggestion(String id, String title, int popularity) {
+        return new MediaSuggestion(id, title, "movie", popularity);
+    }
+
+    private static List<String> ids(List<MediaSuggestion> suggestions) {
+        return suggestions.stream().map(MediaSuggestion::getId).toList();
+    }
+}
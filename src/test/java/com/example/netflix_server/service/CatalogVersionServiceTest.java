@@ -0,0 +1,78 @@
+package com.example.netflix_server.service;
+
+import com.example.netflix_server.model.CatalogVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CatalogVersionServiceTest {
+
+    // Stand-in for the catalog_meta document, which other instances bump too
+    private final CatalogVersion stored = new CatalogVersion("media", 5L, Instant.now());
+
+    private final CatalogVersionService service = new CatalogVersionService();
+
+    private final AtomicInteger reloads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.findById("media", CatalogVersion.class)).thenAnswer(invocation -> copy());
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(CatalogVersion.class))).thenAnswer(invocation -> {
+            stored.setVersion(stored.getVersion() + 1);
+            return copy();
+        });
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.invokeMethod(service, "loadVersion");
+        service.onExternalChange(reloads::incrementAndGet);
+    }
+
+    @Test
+    void ownWritesDoNotReload() {
+        assertEquals(6, service.bump());
+        service.pollVersion();
+
+        assertEquals(0, reloads.get());
+        assertEquals(6, service.getVersion());
+    }
+
+    @Test
+    void pollPicksUpOtherWriters() {
+        stored.setVersion(8L);
+
+        service.pollVersion();
+
+        assertEquals(1, reloads.get());
+        assertEquals(8, service.getVersion());
+    }
+
+    @Test
+    void bumpPastAnotherWriterReloads() {
+        // Another instance wrote before the poll noticed
+        stored.setVersion(7L);
+
+        assertEquals(8, service.bump());
+        service.pollVersion();
+
+        assertEquals(1, reloads.get());
+        assertEquals(8, service.getVersion());
+    }
+
+    private CatalogVersion copy() {
+        return new CatalogVersion(stored.getId(), stored.getVersion(), stored.getUpdatedAt());
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.netflix_server.service;
+
+import com.example.netflix_server.dto.MediaRequest;
+import com.example.netflix_server.dto.MediaResponse;
+import com.example.netflix_server.dto.MediaSuggestion;
+import com.example.netflix_server.model.Media;
+import com.example.netflix_server.repository.MediaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MediaServiceTest {
+
+    // Stand-in for the media collection
+    private final List<Media> stored = List.of(
+        media("1", "Mission: Impossible (1996)"),
+        media("2", "Mission to Mars"),
+        media("3", "C++ for Beginners")
+    );
+
+    private final MediaService service = new MediaService();
+
+    @BeforeEach
+    void setUp() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        MongoOperations operations = mock(MongoOperations.class, new CollectionAnswer());
+        doReturn(converter).when(operations).getConverter();
+
+        // The real derived query, so the test sees how Spring Data escapes the search term
+        MediaRepository repository = new MongoRepositoryFactory(operations).getRepository(MediaRepository.class);
+        ReflectionTestUtils.setField(service, "mediaRepository", repository);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "catalogVersionService", mock(CatalogVersionService.class));
+        ReflectionTestUtils.setField(service, "cacheMaxEntries", 100L);
+        ReflectionTestUtils.setField(service, "cacheTtl", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(service, "cacheRefreshAfter", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(service, "suggestMaxResults", 10);
+        ReflectionTestUtils.invokeMethod(service, "initCatalogCache");
+    }
+
+    @Test
+    void fallbackMatchesTitlesWithPunctuationLiterally() {
+        assertEquals(List.of("Mission: Impossible (1996)"), titles(service.searchMediaByTitle("mission: impossible (")));
+        assertEquals(List.of("C++ for Beginners"), titles(service.searchMediaByTitle("c++")));
+    }
+
+    @Test
+    void fallbackMatchesAnywhereInTheTitle() {
+        assertEquals(List.of("Mission: Impossible (1996)", "Mission to Mars"), titles(service.searchMediaByTitle("MISSION")));
+    }
+
+    @Test
+    void fallbackDoesNotTreatTheTermAsAPattern() {
+        assertTrue(service.searchMediaByTitle(".*").isEmpty());
+    }
+
+    @Test
+    void rebuildKeepsWritesThatLandDuringIt() throws InterruptedException {
+        MediaRepository repository = mock(MediaRepository.class);
+        when(repository.save(any(Media.class))).thenAnswer(invocation -> {
+            Media media = invocation.getArgument(0);
+            media.setId("4");
+            return media;
+        });
+        MediaRequest request = new MediaRequest();
+        request.setTitle("Arrival");
+        request.setMediaType("movie");
+        Thread writer = new Thread(() -> service.createMedia(request));
+        // The new item is saved after the rebuild has taken its snapshot
+        when(repository.streamAllBy()).thenAnswer(invocation -> {
+            writer.start();
+            Thread.sleep(200);
+            return stored.stream();
+        });
+        ReflectionTestUtils.setField(service, "mediaRepository", repository);
+
+        service.buildSearchIndex();
+        writer.join();
+
+        assertEquals(List.of("Arrival"), titles(service.searchMediaByTitle("arrival")));
+        assertEquals(List.of("Arrival"), service.suggestTitles("arr", 5).stream().map(MediaSuggestion::getTitle).toList());
+    }
+
+    private static List<String> titles(List<MediaResponse> results) {
+        return results.stream().map(MediaResponse::getTitle).collect(Collectors.toList());
+    }
+
+    private static Media media(String id, String title) {
+        Media media = new Media();
+        media.setId(id);
+        media.setTitle(title);
+        return media;
+    }
+
+    /**
+     * Follows MongoOperations' fluent find API and answers the final all() by
+     * running the query's title regex over the stored media
+     */
+    private class CollectionAnswer implements Answer<Object> {
+
+        private Query query;
+
+        @Override
+        public Object answer(InvocationOnMock invocation) throws Throwable {
+            for (Object argument : invocation.getArguments()) {
+                if (argument instanceof Query matching) {
+                    query = matching;
+                }
+            }
+            Class<?> returnType = invocation.getMethod().getReturnType();
+            if (returnType == List.class) {
+                Pattern pattern = (Pattern) query.getQueryObject().get("title");
+                return stored.stream()
+                    .filter(media -> pattern.matcher(media.getTitle()).matches())
+                    .collect(Collectors.toList());
+            }
+            if (returnType.isInterface() && returnType.getName().startsWith("org.springframework.data.mongodb.core.Executable")) {
+                return mock(returnType, this);
+            }
+            return RETURNS_DEFAULTS.answer(invocation);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.netflix_server.service;
+
+import com.example.netflix_server.exception.InvalidTokenException;
+import com.example.netflix_server.model.RefreshToken;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RefreshTokenServiceTest {
+
+    // Stand-in for the refresh_tokens collection
+    private final List<RefreshToken> stored = new ArrayList<>();
+
+    private final RefreshTokenService service = new RefreshTokenService();
+
+    @BeforeEach
+    void setUp() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.insert(any(RefreshToken.class))).thenAnswer(invocation -> {
+            RefreshToken token = invocation.getArgument(0);
+            stored.add(token);
+            return token;
+        });
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(RefreshToken.class))).thenAnswer(invocation -> {
+            Document query = invocation.getArgument(0, Query.class).getQueryObject();
+            for (RefreshToken token : stored) {
+                if (token.getTokenHash().equals(query.get("tokenHash")) && !token.isUsed()
+                        && token.getExpiresAt().isAfter(Instant.now())) {
+                    token.setUsed(true);
+                    return token;
+                }
+            }
+            return null;
+        });
+        when(mongoTemplate.findOne(any(Query.class), eq(RefreshToken.class))).thenAnswer(invocation -> {
+            Document query = invocation.getArgument(0, Query.class).getQueryObject();
+            return stored.stream()
+                .filter(token -> token.getTokenHash().equals(query.get("tokenHash")))
+                .findFirst().orElse(null);
+        });
+        when(mongoTemplate.remove(any(Query.class), eq(RefreshToken.class))).thenAnswer(invocation -> {
+            Document query = invocation.getArgument(0, Query.class).getQueryObject();
+            stored.removeIf(token -> token.getFamilyId().equals(query.get("familyId")));
+            return null;
+        });
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "refreshExpiration", Duration.ofDays(14));
+    }
+
+    @Test
+    void storesOnlyAHashOfTheToken() {
+        String rawToken = service.issue("user-1", "a@example.com", null);
+
+        assertEquals(1, stored.size());
+        assertNotEquals(rawToken, stored.get(0).getTokenHash());
+        assertEquals(64, stored.get(0).getTokenHash().length());
+    }
+
+    @Test
+    void rotationKeepsTheFamily() {
+        String first = service.issue("user-1", "a@example.com", null);
+        RefreshToken consumed = service.consume(first);
+        String second = service.issue(consumed.getUserId(), consumed.getEmail(), consumed.getFamilyId());
+
+        RefreshToken consumedSecond = service.consume(second);
+
+        assertEquals(consumed.getFamilyId(), consumedSecond.getFamilyId());
+        assertTrue(consumedSecond.isUsed());
+    }
+
+    @Test
+    void reusingAConsumedTokenRevokesTheWholeFamily() {
+        String first = service.issue("user-1", "a@example.com", null);
+        RefreshToken consumed = service.consume(first);
+        String successor = service.issue(consumed.getUserId(), consumed.getEmail(), consumed.getFamilyId());
+        String otherLogin = service.issue("user-1", "a@example.com", null);
+
+        InvalidTokenException reuse = assertThrows(InvalidTokenException.class, () -> service.consume(first));
+        assertTrue(reuse.getMessage().contains("already used"));
+
+        // The legitimate successor dies with the family; other logins are untouched
+        InvalidTokenException revoked = assertThrows(InvalidTokenException.class, () -> service.consume(successor));
+        assertTrue(revoked.getMessage().contains("Invalid or expired"));
+        assertEquals("user-1", service.consume(otherLogin).getUserId());
+    }
+
+    @Test
+    void rejectsUnknownTokensWithoutRevokingAnything() {
+        service.issue("user-1", "a@example.com", null);
+
+        assertThrows(InvalidTokenException.class, () -> service.consume("not-a-token"));
+        assertEquals(1, stored.size());
+    }
+
+    @Test
+    void logoutRevokesTheFamily() {
+        String first = service.issue("user-1", "a@example.com", null);
+        RefreshToken consumed = service.consume(first);
+        String successor = service.issue(consumed.getUserId(), consumed.getEmail(), consumed.getFamilyId());
+
+        service.revoke(successor);
+
+        assertTrue(stored.isEmpty());
+        assertThrows(InvalidTokenException.class, () -> service.consume(successor));
+    }
+}
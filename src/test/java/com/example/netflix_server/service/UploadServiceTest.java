@@ -0,0 +1,270 @@
+package com.example.netflix_server.service;
+
+import com.example.netflix_server.dto.MediaPatchRequest;
+import com.example.netflix_server.dto.UploadSessionRequest;
+import com.example.netflix_server.dto.UploadSessionResponse;
+import com.example.netflix_server.model.Media;
+import com.example.netflix_server.model.UploadSession;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UploadServiceTest {
+
+    private static final String MEDIA_ID = "0123456789abcdef01234567";
+    private static final int CHUNK_SIZE = 100_000;
+
+    @TempDir
+    Path root;
+
+    private final UploadService service = new UploadService();
+
+    private final MediaService mediaService = mock(MediaService.class);
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+    // Stand-in for the upload_sessions collection, which only ever holds one session here
+    private UploadSession stored;
+
+    private byte[] data;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.exists(any(Query.class), eq(Media.class))).thenReturn(true);
+        when(mongoTemplate.insert(any(UploadSession.class))).thenAnswer(invocation -> {
+            stored = invocation.getArgument(0);
+            stored.setId("upload-1");
+            return stored;
+        });
+        when(mongoTemplate.findById(eq("upload-1"), eq(UploadSession.class))).thenAnswer(invocation -> stored);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(UploadSession.class))).thenAnswer(invocation ->
+            apply(invocation.getArgument(0, Query.class), invocation.getArgument(1, Update.class)) ? stored : null);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UploadSession.class)))
+            .thenAnswer(invocation -> {
+                apply(invocation.getArgument(0, Query.class), invocation.getArgument(1, Update.class));
+                return null;
+            });
+
+        VideoStreamService videoStreamService = mock(VideoStreamService.class);
+        when(videoStreamService.resolve(anyString())).thenAnswer(invocation -> root.resolve((String) invocation.getArgument(0)));
+
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "mediaService", mediaService);
+        ReflectionTestUtils.setField(service, "videoStreamService", videoStreamService);
+        ReflectionTestUtils.setField(service, "uploadDirectory", root.resolve(".uploads"));
+        ReflectionTestUtils.setField(service, "chunkSize", DataSize.ofBytes(CHUNK_SIZE));
+        ReflectionTestUtils.setField(service, "maxFileSize", DataSize.ofGigabytes(1));
+        ReflectionTestUtils.setField(service, "sessionTtl", Duration.ofDays(1));
+
+        data = new byte[350_000];
+        new Random(1).nextBytes(data);
+        service.createSession(new UploadSessionRequest(MEDIA_ID, "video.mp4", (long) data.length), "user-1");
+    }
+
+    @Test
+    void hashesChunksThatArriveOutOfOrder() throws IOException {
+        for (int chunk : new int[] {2, 0, 3, 1}) {
+            writeChunk(chunk);
+        }
+
+        UploadSessionResponse response = service.complete("upload-1", sha256(data));
+
+        assertEquals("complete", response.getStatus());
+        assertEquals(sha256(data), response.getSha256());
+        assertArrayEquals(data, Files.readAllBytes(videoPath()));
+    }
+
+    @Test
+    void rebuildsTheHashFromDiskAfterARestart() throws IOException {
+        writeChunk(0);
+        writeChunk(1);
+        // A restart loses the in-memory digests
+        ((Map<?, ?>) ReflectionTestUtils.getField(service, "hashStates")).clear();
+        writeChunk(3);
+        writeChunk(2);
+
+        assertEquals(sha256(data), service.complete("upload-1", null).getSha256());
+    }
+
+    @Test
+    void rejectsMissingChunksAndReopens() throws IOException {
+        writeChunk(0);
+        writeChunk(2);
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+            () -> service.complete("upload-1", null));
+
+        assertTrue(error.getMessage().contains("first missing is 1"));
+        assertEquals("open", stored.getStatus());
+        assertEquals(List.of(1, 3), service.getSession("upload-1").getMissingChunks());
+    }
+
+    @Test
+    void rejectsAHashMismatchAndStaysResumable() throws IOException {
+        writeAllChunks();
+
+        assertThrows(IllegalArgumentException.class, () -> service.complete("upload-1", sha256(new byte[1])));
+
+        assertEquals("open", stored.getStatus());
+        assertEquals(sha256(data), service.complete("upload-1", sha256(data)).getSha256());
+    }
+
+    @Test
+    void refusesASecondCompletionWhileTheFirstRuns() throws IOException {
+        writeAllChunks();
+        IllegalArgumentException[] concurrent = new IllegalArgumentException[1];
+        doAnswer(invocation -> {
+            concurrent[0] = assertThrows(IllegalArgumentException.class, () -> service.complete("upload-1", null));
+            return null;
+        }).when(mediaService).patchMedia(eq(MEDIA_ID), any(MediaPatchRequest.class));
+
+        service.complete("upload-1", null);
+
+        assertTrue(concurrent[0].getMessage().contains("already being completed"));
+        assertEquals("complete", stored.getStatus());
+        assertArrayEquals(data, Files.readAllBytes(videoPath()));
+    }
+
+    @Test
+    void refusesToCompleteTwice() throws IOException {
+        writeAllChunks();
+        service.complete("upload-1", null);
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+            () -> service.complete("upload-1", null));
+
+        assertTrue(error.getMessage().contains("already complete"));
+    }
+
+    @Test
+    void putsTheFileBackWhenTheMediaCannotBeUpdated() throws IOException {
+        writeAllChunks();
+        doThrow(new IllegalStateException("database down"))
+            .when(mediaService).patchMedia(eq(MEDIA_ID), any(MediaPatchRequest.class));
+
+        assertThrows(IllegalStateException.class, () -> service.complete("upload-1", null));
+
+        assertEquals("open", stored.getStatus());
+        assertFalse(Files.exists(videoPath()));
+        assertTrue(Files.exists(root.resolve(".uploads/upload-1.part")));
+
+        doReturn(null).when(mediaService).patchMedia(eq(MEDIA_ID), any(MediaPatchRequest.class));
+        assertEquals(sha256(data), service.complete("upload-1", null).getSha256());
+        assertArrayEquals(data, Files.readAllBytes(videoPath()));
+    }
+
+    @Test
+    void keepsTheCurrentVideoUntilTheMediaPointsAtTheNewOne() throws IOException {
+        Path current = Files.createDirectories(root.resolve("videos/" + MEDIA_ID)).resolve("video.mp4");
+        Files.write(current, new byte[] {1, 2, 3});
+        Media media = new Media();
+        media.setVideoFile("videos/" + MEDIA_ID + "/video.mp4");
+        when(mongoTemplate.findOne(any(Query.class), eq(Media.class))).thenReturn(media);
+        writeAllChunks();
+        doThrow(new IllegalStateException("database down"))
+            .when(mediaService).patchMedia(eq(MEDIA_ID), any(MediaPatchRequest.class));
+
+        assertThrows(IllegalStateException.class, () -> service.complete("upload-1", null));
+        assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(current));
+
+        doReturn(null).when(mediaService).patchMedia(eq(MEDIA_ID), any(MediaPatchRequest.class));
+        service.complete("upload-1", null);
+
+        assertFalse(Files.exists(current));
+        assertArrayEquals(data, Files.readAllBytes(videoPath()));
+    }
+
+    @Test
+    void refusesChunksWhileCompleting() throws IOException {
+        writeAllChunks();
+        IllegalArgumentException[] late = new IllegalArgumentException[1];
+        doAnswer(invocation -> {
+            late[0] = assertThrows(IllegalArgumentException.class, () -> writeChunk(0));
+            return null;
+        }).when(mediaService).patchMedia(eq(MEDIA_ID), any(MediaPatchRequest.class));
+
+        service.complete("upload-1", null);
+
+        assertTrue(late[0].getMessage().contains("already being completed"));
+        assertArrayEquals(data, Files.readAllBytes(videoPath()));
+    }
+
+    private void writeAllChunks() throws IOException {
+        for (int chunk = 0; chunk < 4; chunk++) {
+            writeChunk(chunk);
+        }
+    }
+
+    private void writeChunk(int chunk) throws IOException {
+        int offset = chunk * CHUNK_SIZE;
+        int length = Math.min(CHUNK_SIZE, data.length - offset);
+        service.writeChunk("upload-1", chunk, length, new ByteArrayInputStream(data, offset, length));
+    }
+
+    private Path videoPath() {
+        return root.resolve("videos/" + MEDIA_ID + "/upload-1-video.mp4");
+    }
+
+    /**
+     * Apply the parts of an update the service uses, if the query's status condition holds
+     */
+    @SuppressWarnings("unchecked")
+    private boolean apply(Query query, Update update) {
+        Object status = query.getQueryObject().get("status");
+        if (stored == null || (status != null && !status.equals(stored.getStatus()))) {
+            return false;
+        }
+        Document changes = update.getUpdateObject();
+        Document addToSet = (Document) changes.get("$addToSet");
+        if (addToSet != null && !stored.getReceivedChunks().contains((Integer) addToSet.get("receivedChunks"))) {
+            stored.getReceivedChunks().add((Integer) addToSet.get("receivedChunks"));
+        }
+        Document set = (Document) changes.get("$set");
+        if (set != null && set.containsKey("status")) {
+            stored.setStatus((String) set.get("status"));
+        }
+        return true;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
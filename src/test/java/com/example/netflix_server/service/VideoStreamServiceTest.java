@@ -0,0 +1,74 @@
+package com.example.netflix_server.service;
+
+import com.example.netflix_server.service.VideoStreamService.ByteRange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VideoStreamServiceTest {
+
+    private final VideoStreamService service = new VideoStreamService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "maxRanges", 3);
+    }
+
+    @Test
+    void parsesClosedAndOpenEndedRanges() {
+        assertEquals(List.of(new ByteRange(0, 99)), service.parseRanges("bytes=0-99", 1000));
+        assertEquals(List.of(new ByteRange(500, 999)), service.parseRanges("bytes=500-", 1000));
+        // An end past the file is clamped
+        assertEquals(List.of(new ByteRange(900, 999)), service.parseRanges("bytes=900-5000", 1000));
+    }
+
+    @Test
+    void parsesSuffixRanges() {
+        assertEquals(List.of(new ByteRange(900, 999)), service.parseRanges("bytes=-100", 1000));
+        // A suffix longer than the file is the whole file
+        assertEquals(List.of(new ByteRange(0, 999)), service.parseRanges("bytes=-5000", 1000));
+    }
+
+    @Test
+    void sortsAndMergesOverlappingAndAdjacentRanges() {
+        assertEquals(List.of(new ByteRange(0, 299), new ByteRange(500, 599)),
+            service.parseRanges("bytes=500-599, 100-299, 0-150", 1000));
+        // Adjacent ranges become one
+        assertEquals(List.of(new ByteRange(0, 199)), service.parseRanges("bytes=0-99,100-199", 1000));
+        // A suffix overlapping an explicit range
+        assertEquals(List.of(new ByteRange(800, 999)), service.parseRanges("bytes=800-950,-100", 1000));
+    }
+
+    @Test
+    void reportsUnsatisfiableRangesAsEmpty() {
+        assertTrue(service.parseRanges("bytes=1000-", 1000).isEmpty());
+        assertTrue(service.parseRanges("bytes=2000-3000", 1000).isEmpty());
+        assertTrue(service.parseRanges("bytes=-0", 1000).isEmpty());
+        assertTrue(service.parseRanges("bytes=-10", 0).isEmpty());
+        // Satisfiable ranges survive next to unsatisfiable ones
+        assertEquals(List.of(new ByteRange(0, 9)), service.parseRanges("bytes=5000-,0-9", 1000));
+    }
+
+    @Test
+    void ignoresMalformedHeaders() {
+        assertNull(service.parseRanges(null, 1000));
+        assertNull(service.parseRanges("items=0-10", 1000));
+        assertNull(service.parseRanges("bytes=10", 1000));
+        assertNull(service.parseRanges("bytes=abc-def", 1000));
+        assertNull(service.parseRanges("bytes=50-10", 1000));
+    }
+
+    @Test
+    void collapsesTooManyRangesIntoOneSpan() {
+        assertEquals(List.of(new ByteRange(0, 0), new ByteRange(10, 10), new ByteRange(20, 20)),
+            service.parseRanges("bytes=0-0,10-10,20-20", 1000));
+        assertEquals(List.of(new ByteRange(0, 30)),
+            service.parseRanges("bytes=30-30,0-0,10-10,20-20", 1000));
+    }
+}
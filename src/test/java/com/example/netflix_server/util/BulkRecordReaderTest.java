@@ -0,0 +1,94 @@
+package com.example.netflix_server.util;
+
+import com.example.netflix_server.dto.BulkImportResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.constraints.NotBlank;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkRecordReaderTest {
+
+    public record Item(@NotBlank String name) {
+    }
+
+    private final BulkRecordReader reader = new BulkRecordReader();
+
+    private final List<List<String>> batches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(reader, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(reader, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    @Test
+    void readsArraysInBatchesAndReportsInvalidRecords() throws IOException {
+        BulkImportResponse report = read("[{\"name\":\"a\"},{\"name\":\"\"},{\"name\":\"b\"},{\"name\":\"c\"}]",
+            2, batch -> Map.of());
+
+        assertEquals(List.of(List.of("a", "b"), List.of("c")), batches);
+        assertEquals(4, report.getReceived());
+        assertEquals(3, report.getInserted());
+        assertEquals(1, report.getFailed());
+        assertEquals(1, report.getErrors().get(0).getIndex());
+        assertNull(report.getParseError());
+    }
+
+    @Test
+    void mapsSinkFailuresBackToPayloadPositions() throws IOException {
+        // NDJSON; the sink rejects the second record of each full batch (payload record 2)
+        BulkImportResponse report = read("{\"name\":\"a\"}\n{}\n{\"name\":\"b\"}\n{\"name\":\"c\"}\n",
+            2, batch -> batch.size() > 1 ? Map.of(1, "duplicate") : Map.of());
+
+        assertEquals(2, report.getInserted());
+        assertEquals(2, report.getFailed());
+        assertEquals(List.of(1, 2), report.getErrors().stream().map(BulkImportResponse.RecordError::getIndex).toList());
+        assertEquals("duplicate", report.getErrors().get(1).getMessage());
+        assertEquals(4, report.getReceived());
+    }
+
+    @Test
+    void keepsThePartialReportOnMalformedJson() throws IOException {
+        BulkImportResponse report = read("[{\"name\":\"a\"},{\"name\":\"b\"},{\"name\":\"c\"}, {oops",
+            2, batch -> Map.of());
+
+        assertEquals(List.of(List.of("a", "b"), List.of("c")), batches);
+        assertEquals(3, report.getReceived());
+        assertEquals(3, report.getInserted());
+        assertTrue(report.getParseError().startsWith("Malformed JSON at line 1, column "), report.getParseError());
+        assertTrue(report.getParseError().contains("after 3 records"), report.getParseError());
+    }
+
+    @Test
+    void capsReportedErrors() throws IOException {
+        BulkImportResponse report = read("[{},{},{}]", 10, batch -> Map.of());
+
+        assertEquals(3, report.getFailed());
+        assertEquals(2, report.getErrors().size());
+        assertTrue(report.isErrorsTruncated());
+        assertFalse(report.getErrors().isEmpty());
+    }
+
+    private BulkImportResponse read(String body, int batchSize,
+                                    BulkRecordReader.BatchSink<Item> sink) throws IOException {
+        return reader.read(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), Item.class, batchSize, 2,
+            batch -> {
+                batches.add(batch.stream().map(Item::name).toList());
+                return sink.write(batch);
+            });
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.netflix_server.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ThrottledChannelTest {
+
+    private static final int KB = 1024;
+
+    private final RecordingChannel sink = new RecordingChannel();
+
+    @Test
+    void sendsTheBurstWithoutWaiting() throws IOException {
+        ThrottledChannel channel = new ThrottledChannel(sink, 100 * KB, 512 * KB);
+
+        long elapsed = timedWrite(channel, 512 * KB);
+
+        assertEquals(512 * KB, sink.total());
+        // At the sustained rate this would take five seconds
+        assertTrue(elapsed < TimeUnit.MILLISECONDS.toNanos(500), "burst took " + elapsed + "ns");
+    }
+
+    @Test
+    void holdsOutputToTheRateAfterTheBurst() throws IOException {
+        ThrottledChannel channel = new ThrottledChannel(sink, 1024 * KB, 64 * KB);
+
+        // 64KB of burst, then 256KB at 1MB/s
+        long elapsed = timedWrite(channel, 320 * KB);
+
+        assertEquals(320 * KB, sink.total());
+        assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(230), "too fast: " + elapsed + "ns");
+        assertTrue(elapsed < TimeUnit.MILLISECONDS.toNanos(1500), "too slow: " + elapsed + "ns");
+    }
+
+    @Test
+    void splitsWritesIntoSmallPieces() throws IOException {
+        ThrottledChannel channel = new ThrottledChannel(sink, 1024 * 1024 * KB, 1024 * KB);
+
+        timedWrite(channel, 200 * KB);
+
+        assertEquals(List.of(64 * KB, 64 * KB, 64 * KB, 8 * KB), sink.writes);
+    }
+
+    @Test
+    void stopsWaitingWhenInterrupted() {
+        ThrottledChannel channel = new ThrottledChannel(sink, KB, 0);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(InterruptedIOException.class, () -> channel.write(ByteBuffer.allocate(128 * KB)));
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(64 * KB, sink.total());
+    }
+
+    private static long timedWrite(ThrottledChannel channel, int bytes) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(bytes);
+        long start = System.nanoTime();
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static final class RecordingChannel implements WritableByteChannel {
+
+        final List<Integer> writes = new ArrayList<>();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        @Override
+        public int write(ByteBuffer src) {
+            int length = src.remaining();
+            byte[] bytes = new byte[length];
+            src.get(bytes);
+            out.write(bytes, 0, length);
+            writes.add(length);
+            return length;
+        }
+
+        int total() {
+            return out.size();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}